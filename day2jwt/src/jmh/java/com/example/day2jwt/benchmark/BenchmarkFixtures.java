@@ -0,0 +1,53 @@
+package com.example.day2jwt.benchmark;
+
+import com.example.day2jwt.service.AuthMetrics;
+import com.example.day2jwt.service.JwtService;
+import com.example.day2jwt.service.RevocationWatermarks;
+import com.example.day2jwt.service.SigningKeyRing;
+import com.example.day2jwt.service.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds services outside of Spring so benchmarks measure only the code under test.
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "your_256bit_secret_hereyour_256bit_secret_hereyour_256bit_secret_hereyour_256bit_secret_here";
+    static final String USERNAME = "bench-user";
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtService jwtService() {
+        return jwtService(120_000L);
+    }
+
+    static JwtService jwtService(long accessExpirationMs) {
+        return jwtService(accessExpirationMs, false);
+    }
+
+    static JwtService jwtService(long accessExpirationMs, boolean verificationCache) {
+        return jwtService(accessExpirationMs, verificationCache, "HS256");
+    }
+
+    static JwtService jwtService(long accessExpirationMs, boolean verificationCache, String algorithm) {
+        return jwtService(accessExpirationMs, verificationCache, algorithm, false);
+    }
+
+    static JwtService jwtService(long accessExpirationMs, boolean verificationCache, String algorithm,
+            boolean fastCodec) {
+        JwtService jwtService = new JwtService(
+                new VerifiedTokenCache(verificationCache, 10_000, new SimpleMeterRegistry()),
+                new SigningKeyRing(SECRET, algorithm, 604_800_000L),
+                new AuthMetrics(new SimpleMeterRegistry()),
+                // Never loaded: no watermarks set, as on a system that never mass-revoked
+                new RevocationWatermarks(null, event -> {
+                }));
+        ReflectionTestUtils.setField(jwtService, "jwtAccessTokenExpirationMs", accessExpirationMs);
+        ReflectionTestUtils.setField(jwtService, "jwtRefreshTokenExpirationMs", 604_800_000L);
+        ReflectionTestUtils.setField(jwtService, "fastCodecEnabled", fastCodec);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        return jwtService;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.day2jwt.benchmark;
+
+import com.example.day2jwt.service.BulkUserImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.StringReader;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per imported user: the bulk pipeline (one IN query, parallel hashing and
+ * one batch insert per chunk) against the old signup path (SELECT, hash, INSERT
+ * per user). In-memory H2 and BCrypt strength 4 keep the run short, so real
+ * Postgres round trips and production BCrypt costs widen the gap further.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkImportBenchmark {
+
+    private static final int USERS = 1_000;
+
+    @Param({ "4" })
+    public int strength;
+
+    private JdbcTemplate jdbcTemplate;
+    private BCryptPasswordEncoder encoder;
+    private BulkUserImportService service;
+    private String body;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bulk;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists users (id bigint generated by default as identity primary key,"
+                + " username varchar(255) not null unique, password varchar(255) not null,"
+                + " token_version integer not null, roles integer default 1 not null,"
+                + " created_at timestamp(6) not null, updated_at timestamp(6))");
+        encoder = new BCryptPasswordEncoder(strength);
+        service = new BulkUserImportService(jdbcTemplate, new DataSourceTransactionManager(dataSource), encoder,
+                new ObjectMapper(), event -> {
+                }, 0, 1_000, 100);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    // Fresh usernames for every invocation, built outside the measured time
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        round++;
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < USERS; i++) {
+            ndjson.append("{\"username\":\"user-").append(round).append('-').append(i)
+                    .append("\",\"password\":\"password-").append(i).append("\"}\n");
+        }
+        body = ndjson.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public long bulkImport() throws Exception {
+        return service.importUsers(new StringReader(body), BulkUserImportService.Format.NDJSON).getCreated();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public int perUserSignup() {
+        int created = 0;
+        for (int i = 0; i < USERS; i++) {
+            String username = "single-" + round + "-" + i;
+            Integer existing = jdbcTemplate.queryForObject("select count(*) from users where username = ?",
+                    Integer.class, username);
+            if (existing != null && existing == 0) {
+                Timestamp now = Timestamp.from(Instant.now());
+                created += jdbcTemplate.update("insert into users (username, password, token_version, created_at,"
+                        + " updated_at) values (?, ?, 0, ?, ?)", username, encoder.encode("password-" + i), now, now);
+            }
+        }
+        return created;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.day2jwt.benchmark;
+
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * jjwt vs the HS256 fast codec (jwt.fast-codec.enabled) for issuing and
+ * verifying the service's own tokens. The verification cache is off so every
+ * verify pays for the HMAC and the parse.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FastCodecBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean fastCodec;
+
+    private JwtService jwtService;
+    private String accessToken;
+    private String tamperedToken;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService(120_000L, false, "HS256", fastCodec);
+        accessToken = jwtService.generateToken(BenchmarkFixtures.USERNAME, 0, 1);
+
+        // Flip one character of the signature
+        char last = accessToken.charAt(accessToken.length() - 2);
+        tamperedToken = accessToken.substring(0, accessToken.length() - 2)
+                + (last == 'A' ? 'B' : 'A')
+                + accessToken.charAt(accessToken.length() - 1);
+    }
+
+    @Benchmark
+    public String issueAccessToken() {
+        return jwtService.generateToken(BenchmarkFixtures.USERNAME, 0, 1);
+    }
+
+    @Benchmark
+    public String issueRefreshToken() {
+        return jwtService.generateRefreshToken(BenchmarkFixtures.USERNAME, 1);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyValid() {
+        return jwtService.verify(accessToken);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyTampered() {
+        return jwtService.verify(tamperedToken);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.day2jwt.benchmark;
+
+import com.example.day2jwt.config.AuthRejectionWriter;
+import com.example.day2jwt.config.JwtAuthFilter;
+import com.example.day2jwt.service.AuthMetrics;
+import com.example.day2jwt.service.JwtService;
+import com.example.day2jwt.service.TokenDenylist;
+import com.example.day2jwt.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full JwtAuthFilter pass with a no-op chain. UserService is stubbed,
+ * so the numbers exclude the database round trip.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthFilterBenchmark {
+
+    private final FilterChain chain = (request, response) -> {
+    };
+
+    @Param({ "false", "true" })
+    public boolean stateless;
+
+    private JwtAuthFilter filter;
+    private String validHeader;
+    private String junkHeader;
+    private String expiredHeader;
+    private String noneAlgHeader;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtService jwtService = BenchmarkFixtures.jwtService();
+
+        UserService userService = Mockito.mock(UserService.class);
+        Mockito.when(userService.getTokenVersion(BenchmarkFixtures.USERNAME)).thenReturn(0);
+
+        // Stateless: the denylist replaces the (here mocked) tokenVersion lookup
+        TokenDenylist denylist = new TokenDenylist(stateless, "", 60_000L, new SimpleMeterRegistry());
+        filter = new JwtAuthFilter(jwtService, userService, new AuthMetrics(new SimpleMeterRegistry()), denylist,
+                new AuthRejectionWriter(new ObjectMapper()));
+        validHeader = "Bearer " + jwtService.generateToken(BenchmarkFixtures.USERNAME);
+        junkHeader = "Bearer not.a.token";
+        expiredHeader = "Bearer " + BenchmarkFixtures.jwtService(-60_000L).generateToken(BenchmarkFixtures.USERNAME);
+        noneAlgHeader = "Bearer " + Jwts.builder().setSubject(BenchmarkFixtures.USERNAME).compact() + "sig";
+    }
+
+    @Benchmark
+    public int validToken() throws Exception {
+        return doFilter(validHeader);
+    }
+
+    @Benchmark
+    public int junkToken() throws Exception {
+        return doFilter(junkHeader);
+    }
+
+    @Benchmark
+    public int expiredToken() throws Exception {
+        return doFilter(expiredHeader);
+    }
+
+    @Benchmark
+    public int noneAlgToken() throws Exception {
+        return doFilter(noneAlgHeader);
+    }
+
+    @Benchmark
+    public int noHeader() throws Exception {
+        return doFilter(null);
+    }
+
+    private int doFilter(String authHeader) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/profile");
+        if (authHeader != null) {
+            request.addHeader("Authorization", authHeader);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.day2jwt.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop HTTP load driver against a running instance. For each concurrency
+ * level it reports throughput, latency percentiles and the error rate, which is
+ * enough to compare thread models (platform vs virtual threads) or config profiles.
+ *
+ * Start the app twice and run the same scenario against each:
+ *   mvn spring-boot:run                                  (platform threads, Java 17)
+ *   mvn -Pjava21 spring-boot:run                         (virtual threads, Java 21)
+ *
+ *   mvn -Pbenchmarks test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.example.day2jwt.benchmark.LoadTest \
+ *       -Dexec.args="scenario=login concurrency=16,64,256,1024 duration=30"
+ *
+ * Same for config profiles, e.g. default settings vs the production profile:
+ *   mvn spring-boot:run
+ *   mvn spring-boot:run -Dspring-boot.run.profiles=prod
+ *   ... -Dexec.args="scenario=profile concurrency=64,256 duration=30"
+ *
+ * Scenarios: login (POST /auth/login, BCrypt + DB) and profile (GET /api/profile).
+ * The highest level whose p99 stays under your SLO and error rate at zero is the
+ * max sustainable concurrency for that setup.
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    private final String baseUrl;
+    private final String username;
+    private final String password;
+
+    private LoadTest(String baseUrl, String username, String password) {
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+
+        LoadTest loadTest = new LoadTest(
+                options.getOrDefault("baseUrl", "http://localhost:8081"),
+                options.getOrDefault("username", "loadtest-user"),
+                options.getOrDefault("password", "loadtest-password"));
+        String scenario = options.getOrDefault("scenario", "profile");
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int[] levels = Arrays.stream(options.getOrDefault("concurrency", "16,64,256").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        loadTest.ensureUser();
+        HttpRequest request = switch (scenario) {
+            case "login" -> loadTest.loginRequest();
+            case "profile" -> loadTest.profileRequest(loadTest.login());
+            default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        };
+
+        System.out.printf("%-12s %10s %10s %10s %10s %10s %10s%n",
+                "concurrency", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors");
+        for (int level : levels) {
+            loadTest.run(request, level, durationSeconds).print(level);
+        }
+    }
+
+    private Result run(HttpRequest request, int concurrency, int durationSeconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> worker(request, deadline)));
+            }
+            Result total = new Result(new long[0], 0);
+            for (Future<Result> future : futures) {
+                total = total.merge(future.get());
+            }
+            total.durationSeconds = durationSeconds;
+            return total;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private Result worker(HttpRequest request, long deadline) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        int errors = 0;
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status >= 400) {
+                    errors++;
+                }
+            } catch (Exception e) {
+                errors++;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new Result(Arrays.copyOf(latencies, count), errors);
+    }
+
+    private void ensureUser() throws Exception {
+        // Ignore the result: the user usually exists already
+        client.send(post("/auth/signup", credentials()), HttpResponse.BodyHandlers.discarding());
+    }
+
+    private String login() throws Exception {
+        HttpResponse<String> response = client.send(loginRequest(), HttpResponse.BodyHandlers.ofString());
+        JsonNode token = MAPPER.readTree(response.body()).path("data").path("accessToken");
+        if (token.isMissingNode() || token.asText().isEmpty()) {
+            throw new IllegalStateException("Login failed: " + response.body());
+        }
+        return token.asText();
+    }
+
+    private HttpRequest loginRequest() throws Exception {
+        return post("/auth/login", credentials());
+    }
+
+    private HttpRequest profileRequest(String accessToken) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/profile"))
+                .header("Authorization", "Bearer " + accessToken)
+                .GET()
+                .build();
+    }
+
+    private String credentials() throws Exception {
+        return MAPPER.writeValueAsString(Map.of("username", username, "password", password));
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static final class Result {
+        private final long[] latenciesNanos;
+        private final int errors;
+        private int durationSeconds;
+
+        private Result(long[] latenciesNanos, int errors) {
+            this.latenciesNanos = latenciesNanos;
+            this.errors = errors;
+        }
+
+        private Result merge(Result other) {
+            long[] merged = Arrays.copyOf(latenciesNanos, latenciesNanos.length + other.latenciesNanos.length);
+            System.arraycopy(other.latenciesNanos, 0, merged, latenciesNanos.length, other.latenciesNanos.length);
+            return new Result(merged, errors + other.errors);
+        }
+
+        private void print(int concurrency) {
+            Arrays.sort(latenciesNanos);
+            System.out.printf("%-12d %10.1f %10.2f %10.2f %10.2f %10.2f %10d%n",
+                    concurrency,
+                    latenciesNanos.length / (double) durationSeconds,
+                    percentile(0.50), percentile(0.90), percentile(0.99), percentile(1.0),
+                    errors);
+        }
+
+        private double percentile(double p) {
+            if (latenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
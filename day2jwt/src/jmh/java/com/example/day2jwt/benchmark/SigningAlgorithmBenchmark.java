@@ -0,0 +1,42 @@
+package com.example.day2jwt.benchmark;
+
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify cost per jwt.signing.algorithm. Asymmetric signing is what
+ * lets resource servers verify locally; this shows what it costs the issuer.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SigningAlgorithmBenchmark {
+
+    @Param({ "HS256", "RS256", "ES256" })
+    public String algorithm;
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService(120_000L, false, algorithm);
+        token = jwtService.generateToken(BenchmarkFixtures.USERNAME);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.generateToken(BenchmarkFixtures.USERNAME);
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtService.verify(token);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.day2jwt.benchmark;
+
+import com.example.day2jwt.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached key + parser (current JwtService) against deriving both on every call,
+ * which is what JwtService did before. Run with -prof gc to compare allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SigningKeyCacheBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService();
+        token = jwtService.generateToken(BenchmarkFixtures.USERNAME);
+    }
+
+    @Benchmark
+    public String generateAccessTokenCached() {
+        return jwtService.generateAccessToken(BenchmarkFixtures.USERNAME, Map.of());
+    }
+
+    @Benchmark
+    public String generateAccessTokenPerCallKey() {
+        return Jwts.builder()
+                .setClaims(Map.of())
+                .claim("type", "access")
+                .setSubject(BenchmarkFixtures.USERNAME)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 120_000L))
+                .signWith(Keys.hmacShaKeyFor(BenchmarkFixtures.SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims extractAllClaimsCached() {
+        return jwtService.extractClaim(token, claims -> claims);
+    }
+
+    @Benchmark
+    public Claims extractAllClaimsPerCallParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(BenchmarkFixtures.SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.day2jwt.benchmark;
+
+import com.example.day2jwt.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing cost, as paid by /auth/login and /auth/refresh-token.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenIssueBenchmark {
+
+    private JwtService jwtService;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService();
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateToken(BenchmarkFixtures.USERNAME);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return jwtService.generateRefreshToken(BenchmarkFixtures.USERNAME);
+    }
+}
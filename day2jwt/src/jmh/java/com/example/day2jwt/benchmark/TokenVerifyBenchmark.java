@@ -0,0 +1,75 @@
+package com.example.day2jwt.benchmark;
+
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.service.JwtService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token parsing cost for the three shapes the filter sees in practice.
+ * Expired and tampered tokens go through the exception path, so their
+ * numbers include exception construction.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenVerifyBenchmark {
+
+    private JwtService jwtService;
+    private JwtService cachingJwtService;
+    private String validToken;
+    private String expiredToken;
+    private String tamperedToken;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService();
+        cachingJwtService = BenchmarkFixtures.jwtService(120_000L, true);
+        validToken = jwtService.generateToken(BenchmarkFixtures.USERNAME);
+        expiredToken = BenchmarkFixtures.jwtService(-60_000L).generateToken(BenchmarkFixtures.USERNAME);
+
+        // Flip one character of the signature
+        char last = validToken.charAt(validToken.length() - 2);
+        tamperedToken = validToken.substring(0, validToken.length() - 2)
+                + (last == 'A' ? 'B' : 'A')
+                + validToken.charAt(validToken.length() - 1);
+    }
+
+    @Benchmark
+    public Claims extractAllClaimsValid() {
+        return extractAllClaims(validToken);
+    }
+
+    @Benchmark
+    public Claims extractAllClaimsExpired() {
+        return extractAllClaims(expiredToken);
+    }
+
+    @Benchmark
+    public Claims extractAllClaimsTampered() {
+        return extractAllClaims(tamperedToken);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyValid() {
+        return jwtService.verify(validToken);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyValidCached() {
+        return cachingJwtService.verify(validToken);
+    }
+
+    private Claims extractAllClaims(String token) {
+        try {
+            return jwtService.extractClaim(token, claims -> claims);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
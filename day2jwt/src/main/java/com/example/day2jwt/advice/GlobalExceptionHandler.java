@@ -2,15 +2,18 @@ package com.example.day2jwt.advice;
 
 import com.example.day2jwt.dto.ApiResponse;
 import com.example.day2jwt.exception.ApiException;
+import com.example.day2jwt.exception.TooManyRequestsException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -51,6 +54,19 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(status).body(response);
     }
 
+    // Handle rate limiting: 429 plus Retry-After so well-behaved clients back off
+    @ExceptionHandler(TooManyRequestsException.class)
+    protected ResponseEntity<ApiResponse<Object>> handleTooManyRequests(TooManyRequestsException ex) {
+        ApiResponse<Object> response = new ApiResponse<>(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                ex.getMessage(),
+                null,
+                "Retry after " + ex.getRetryAfterSeconds() + " seconds");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
     // Handle @Valid validation errors
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
@@ -102,6 +118,12 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
 
+    // @PreAuthorize denials belong to Spring Security (AuthRejectionWriter), not the generic 500 below
+    @ExceptionHandler(AccessDeniedException.class)
+    public void handleAccessDenied(AccessDeniedException ex) {
+        throw ex;
+    }
+
     // Handle generic/unexpected errors
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<Object>> handleGenericException(Exception ex) {
@@ -114,8 +136,9 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
+    // Merged lookup: @ResponseStatus(X) sets value, and only Spring resolves its code alias from it
     private HttpStatus deduceStatusFromAnnotation(Throwable ex) {
-        ResponseStatus rs = ex.getClass().getAnnotation(ResponseStatus.class);
+        ResponseStatus rs = AnnotatedElementUtils.findMergedAnnotation(ex.getClass(), ResponseStatus.class);
         return (rs != null) ? rs.code() : HttpStatus.BAD_REQUEST;
     }
 
@@ -0,0 +1,101 @@
+package com.example.day2jwt.config;
+
+import com.example.day2jwt.dto.ApiResponse;
+import com.example.day2jwt.service.AuthMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Writes the 401/403 responses of the security layer from bodies serialized
+ * once at startup. Unlike sendError there is no ERROR dispatch to /error, so a
+ * flood of bad tokens never reaches Spring MVC or runs the security chain twice.
+ * Headers follow RFC 6750 (WWW-Authenticate: Bearer error="...").
+ */
+@Component
+public class AuthRejectionWriter implements AuthenticationEntryPoint, AccessDeniedHandler {
+
+    // Set by JwtAuthFilter when a bearer token was rejected, read by the entry point
+    public static final String FAILURE_ATTRIBUTE = "com.example.day2jwt.config.AuthRejectionWriter.failure";
+
+    public enum Rejection {
+        MISSING(401, "Authentication required", "Send a bearer token in the Authorization header",
+                "Bearer"),
+        EXPIRED(401, "Token expired", "Refresh the access token or log in again",
+                "Bearer error=\"invalid_token\", error_description=\"The access token expired\""),
+        INVALID(401, "Invalid token", "Log in to get a new token",
+                "Bearer error=\"invalid_token\", error_description=\"The access token is invalid\""),
+        REVOKED(401, "Token revoked", "Log in again",
+                "Bearer error=\"invalid_token\", error_description=\"The access token was revoked\""),
+        FORBIDDEN(403, "Access denied", "Your roles do not allow this request",
+                "Bearer error=\"insufficient_scope\"");
+
+        final int status;
+        final String message;
+        final String actionItem;
+        final String challenge;
+
+        Rejection(int status, String message, String actionItem, String challenge) {
+            this.status = status;
+            this.message = message;
+            this.actionItem = actionItem;
+            this.challenge = challenge;
+        }
+
+        public static Rejection of(AuthMetrics.FailureReason reason) {
+            return switch (reason) {
+                case EXPIRED -> EXPIRED;
+                case VERSION_MISMATCH, REVOKED -> REVOKED;
+                default -> INVALID;
+            };
+        }
+    }
+
+    private final Map<Rejection, byte[]> bodies = new EnumMap<>(Rejection.class);
+
+    // Same ApiResponse shape (and mapper) as every other error, just serialized once
+    public AuthRejectionWriter(ObjectMapper objectMapper) throws JsonProcessingException {
+        for (Rejection rejection : Rejection.values()) {
+            bodies.put(rejection, objectMapper.writeValueAsBytes(
+                    new ApiResponse<>(rejection.status, rejection.message, null, rejection.actionItem)));
+        }
+    }
+
+    public void write(HttpServletResponse response, Rejection rejection) throws IOException {
+        if (response.isCommitted()) {
+            return;
+        }
+        byte[] body = bodies.get(rejection);
+        response.setStatus(rejection.status);
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, rejection.challenge);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // Unauthenticated request to a protected path: say why the token (if any) didn't count
+    @Override
+    public void commence(HttpServletRequest request, HttpServletResponse response,
+            AuthenticationException authException) throws IOException {
+        Object failure = request.getAttribute(FAILURE_ATTRIBUTE);
+        write(response, failure instanceof AuthMetrics.FailureReason reason ? Rejection.of(reason) : Rejection.MISSING);
+    }
+
+    @Override
+    public void handle(HttpServletRequest request, HttpServletResponse response,
+            AccessDeniedException accessDeniedException) throws IOException {
+        write(response, Rejection.FORBIDDEN);
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.day2jwt.config;
 
-import com.example.day2jwt.entity.UserEntity;
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.service.AuthMetrics;
 import com.example.day2jwt.service.JwtService;
+import com.example.day2jwt.service.TokenDenylist;
 import com.example.day2jwt.service.UserService;
+import com.example.day2jwt.utils.RateLimitedLogger;
+import com.example.day2jwt.utils.RoleEnum;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,13 +16,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
 
 @Component
 @RequiredArgsConstructor
@@ -26,8 +28,15 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserService userService;
+    private final AuthMetrics authMetrics;
+    private final TokenDenylist tokenDenylist;
+    private final AuthRejectionWriter rejectionWriter;
+
+    private static final String BEARER_PREFIX = "Bearer ";
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
+    // Rejections are attacker-driven; one line per 10s is enough to notice them
+    private static final RateLimitedLogger rejectionLogger = new RateLimitedLogger(logger, 10_000);
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -38,36 +47,66 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         try {
             String authHeader = request.getHeader("Authorization");
 
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            // Auth scheme is case-insensitive (RFC 7235)
+            if (authHeader == null
+                    || !authHeader.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            String token = authHeader.substring(7);
-            String username = jwtService.extractUsername(token);
+            // Verify the signature once; controllers read the result from the request.
+            // Junk is rejected in place, the token is only copied out of the header if it looks valid.
+            // A rejected token leaves the request anonymous (so /auth/** still works); the reason is
+            // kept for AuthRejectionWriter in case the path needs authentication.
+            VerifiedToken verifiedToken = jwtService.verify(authHeader, BEARER_PREFIX.length(),
+                    reason -> request.setAttribute(AuthRejectionWriter.FAILURE_ATTRIBUTE, reason));
+            String username = verifiedToken != null ? verifiedToken.getSubject() : null;
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Fetch user from DB to check current tokenVersion
-                UserEntity user = userService.getByUsername(username);
+                // Refresh tokens live for days, read as tokenVersion 0 and outlive denylist entries:
+                // they are only good for /auth/refresh-token, never as bearer tokens
+                if (!verifiedToken.isAccessToken()) {
+                    authMetrics.recordFailure(AuthMetrics.FailureReason.WRONG_TYPE);
+                    rejectionLogger.warn("Non-access token presented as bearer token for user: {}", username);
+                    rejectionWriter.write(response, AuthRejectionWriter.Rejection.INVALID);
+                    return;
+                }
+
+                // Stateless mode trusts the signature and only consults the in-memory denylist
+                boolean stateless = tokenDenylist.isEnabled();
+                // Current tokenVersion, cached; only a miss goes to the DB
+                Integer currentTokenVersion = stateless ? null : userService.getTokenVersion(username);
+                boolean valid = stateless
+                        ? jwtService.isTokenValid(verifiedToken) && !tokenDenylist.isRevoked(verifiedToken)
+                        : jwtService.isTokenValid(verifiedToken, currentTokenVersion);
 
-                if (jwtService.isTokenValid(token, user)) {
+                if (valid) {
+                    // Authorities come from the token's role mask as shared precomputed lists, no lookup
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            new User(username, "", Collections.emptyList()),
+                            username,
                             null,
-                            Collections.emptyList());
+                            RoleEnum.authorities(verifiedToken.getRoles()));
 
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, verifiedToken);
                 } else {
-                    logger.warn("Invalid or outdated JWT token for user: {}", username);
-                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
+                    AuthMetrics.FailureReason reason = stateless ? AuthMetrics.FailureReason.REVOKED
+                            : currentTokenVersion == null ? AuthMetrics.FailureReason.UNKNOWN_USER
+                            : currentTokenVersion != verifiedToken.getTokenVersion()
+                                    ? AuthMetrics.FailureReason.VERSION_MISMATCH
+                                    : AuthMetrics.FailureReason.REVOKED;
+                    authMetrics.recordFailure(reason);
+                    rejectionLogger.warn("Invalid or outdated JWT token for user: {}", username);
+                    // Pre-serialized body, no sendError: no ERROR dispatch through MVC and the chain again
+                    rejectionWriter.write(response, AuthRejectionWriter.Rejection.of(reason));
                     return;
                 }
             }
 
         } catch (Exception e) {
-            logger.error("Error in JWT authentication filter", e);
-            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Authentication failed");
+            rejectionLogger.warn("Error in JWT authentication filter", e);
+            rejectionWriter.write(response, AuthRejectionWriter.Rejection.INVALID);
             return;
         }
 
@@ -1,15 +1,114 @@
 package com.example.day2jwt.config;
+import com.example.day2jwt.utils.VersionedPbkdf2PasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;        
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 public class PasswordConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(PasswordConfig.class);
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    private static final int BCRYPT_MAX_STRENGTH = 16;
+    private static final int PBKDF2_MAX_ITERATIONS = 10_000_000;
+
+    @Value("${auth.password.algorithm:bcrypt}")
+    private String algorithm;
+
+    // Minimum cost; calibration may raise it but never lowers it
+    @Value("${auth.password.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${auth.password.pbkdf2.iterations:310000}")
+    private int pbkdf2Iterations;
+
+    @Value("${auth.password.argon2.memory-kb:19456}")
+    private int argon2MemoryKb;
+
+    @Value("${auth.password.argon2.iterations:2}")
+    private int argon2Iterations;
+
+    // Target time for one hash on this machine, 0 disables calibration
+    @Value("${auth.password.target-hash-ms:0}")
+    private long targetHashMs;
+
+    /**
+     * New hashes use the configured algorithm and are stored with an {id} prefix.
+     * Existing unprefixed hashes are plain BCrypt and still match; upgradeEncoding
+     * reports them (and any hash below the current cost) so UserService can rehash
+     * them on the next successful login.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(calibrateBcryptStrength()));
+        // Keeps the iteration count in the hash, so a raised count is detected and old hashes still match
+        encoders.put("pbkdf2", new VersionedPbkdf2PasswordEncoder(calibratePbkdf2Iterations(), pbkdf2Iterations));
+        // Argon2 needs BouncyCastle on the classpath
+        if (ClassUtils.isPresent("org.bouncycastle.crypto.params.Argon2Parameters", null)) {
+            encoders.put("argon2", new Argon2PasswordEncoder(16, 32, 1, argon2MemoryKb, argon2Iterations));
+        }
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unsupported password algorithm '" + algorithm
+                    + "', available: " + encoders.keySet());
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+
+    // Each +1 doubles BCrypt cost: time one cheap hash and extrapolate
+    private int calibrateBcryptStrength() {
+        if (targetHashMs <= 0 || !"bcrypt".equals(algorithm)) {
+            return bcryptStrength;
+        }
+        int probeStrength = 8;
+        double probeMs = timeHash(new BCryptPasswordEncoder(probeStrength));
+        int strength = probeStrength;
+        while (strength < BCRYPT_MAX_STRENGTH && probeMs * (1L << (strength + 1 - probeStrength)) <= targetHashMs) {
+            strength++;
+        }
+        int chosen = Math.max(bcryptStrength, strength);
+        logger.info("Password hashing calibrated: bcrypt strength {} (~{} ms per hash, target {} ms)",
+                chosen, Math.round(probeMs * (1L << (chosen - probeStrength))), targetHashMs);
+        return chosen;
     }
-}
 
+    // PBKDF2 cost is linear in the iteration count
+    private int calibratePbkdf2Iterations() {
+        if (targetHashMs <= 0 || !"pbkdf2".equals(algorithm)) {
+            return pbkdf2Iterations;
+        }
+        int probeIterations = 10_000;
+        double probeMs = timeHash(new Pbkdf2PasswordEncoder("", 16, probeIterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        long scaled = (long) (probeIterations * (targetHashMs / Math.max(probeMs, 0.01)));
+        int chosen = (int) Math.max(pbkdf2Iterations, Math.min(scaled, PBKDF2_MAX_ITERATIONS));
+        logger.info("Password hashing calibrated: pbkdf2 {} iterations (target {} ms)", chosen, targetHashMs);
+        return chosen;
+    }
+
+    // Best of a few runs, the first one includes JIT warm-up
+    private static double timeHash(PasswordEncoder encoder) {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000.0);
+        }
+        return best;
+    }
+}
@@ -1,20 +1,27 @@
 package com.example.day2jwt.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
+@EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final AuthRejectionWriter authRejectionWriter;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -25,10 +32,21 @@ public class SecurityConfig {
                 // Define endpoint access rules
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/**").permitAll() // Public endpoints (login, register)
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll() // Status only, no details
+                        // Failure counts, cache sizes and latencies are for operators and scrapers, not the public
+                        .requestMatchers(EndpointRequest.to(MetricsEndpoint.class, PrometheusScrapeEndpoint.class))
+                                .hasAnyRole("ADMIN", "SERVICE")
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN") // Role comes from the token
+                        .requestMatchers("/api/introspect").hasAnyRole("SERVICE", "ADMIN")
                         .requestMatchers("/api/**").authenticated() // All /api endpoints require authentication
                         .anyRequest().denyAll() // Deny everything else
                 )
 
+                // 401/403 written from pre-serialized bodies instead of sendError and an /error dispatch
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(authRejectionWriter)
+                        .accessDeniedHandler(authRejectionWriter))
+
                 // Set session management to stateless since we use JWT
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
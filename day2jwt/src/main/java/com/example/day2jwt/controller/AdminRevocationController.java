@@ -0,0 +1,45 @@
+package com.example.day2jwt.controller;
+
+import com.example.day2jwt.dto.ApiResponse;
+import com.example.day2jwt.service.RevocationWatermarks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/revocations")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class AdminRevocationController {
+
+    private final RevocationWatermarks revocationWatermarks;
+
+    // Current "not valid before" per scope
+    @GetMapping
+    public ResponseEntity<ApiResponse<Map<String, Instant>>> current() {
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Revocation watermarks",
+                revocationWatermarks.current(), ""));
+    }
+
+    /**
+     * Invalidates every access and refresh token issued so far, on all nodes:
+     * scope "global" (default) or a role name such as ADMIN.
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<Map<String, Instant>>> revoke(
+            @RequestParam(defaultValue = RevocationWatermarks.GLOBAL) String scope) {
+        revocationWatermarks.revoke(scope);
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(),
+                "Tokens issued before now are no longer accepted", revocationWatermarks.current(),
+                "Affected users must log in again"));
+    }
+}
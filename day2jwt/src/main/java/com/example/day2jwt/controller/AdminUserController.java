@@ -0,0 +1,71 @@
+package com.example.day2jwt.controller;
+
+import com.example.day2jwt.dto.ApiResponse;
+import com.example.day2jwt.dto.BulkImportResultDTO;
+import com.example.day2jwt.dto.UserRolesDTO;
+import com.example.day2jwt.service.BulkUserImportService;
+import com.example.day2jwt.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/admin/users")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class AdminUserController {
+
+    private final BulkUserImportService bulkUserImportService;
+    private final UserService userService;
+
+    /**
+     * Bulk signup — NDJSON ({"username":..,"password":..} per line) or CSV
+     * (username,password, optional header). The body is streamed, not buffered.
+     */
+    @PostMapping(value = "/bulk", consumes = { "application/x-ndjson", "text/csv" })
+    public ResponseEntity<ApiResponse<BulkImportResultDTO>> bulkImport(HttpServletRequest request)
+            throws IOException {
+        BulkUserImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? BulkUserImportService.Format.CSV
+                : BulkUserImportService.Format.NDJSON;
+        // UTF-8 unless the client says otherwise (the servlet default would be ISO-8859-1)
+        Charset charset = request.getCharacterEncoding() != null
+                ? Charset.forName(request.getCharacterEncoding())
+                : StandardCharsets.UTF_8;
+
+        BulkImportResultDTO result;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), charset))) {
+            result = bulkUserImportService.importUsers(reader, format);
+        }
+
+        ApiResponse<BulkImportResultDTO> response = new ApiResponse<>(
+                HttpStatus.OK.value(),
+                "Imported " + result.getCreated() + " of " + result.getReceived() + " users",
+                result,
+                result.getFailed() > 0 ? "See errors for rows that were not imported" : "");
+        return ResponseEntity.ok(response);
+    }
+
+    // Replaces the user's roles and revokes their tokens; new roles apply from the next login
+    @PutMapping("/{username}/roles")
+    public ResponseEntity<ApiResponse<UserRolesDTO>> updateRoles(@PathVariable String username,
+            @RequestBody @Valid UserRolesDTO request) {
+        UserRolesDTO roles = new UserRolesDTO(userService.updateRoles(username, request.getRoles()));
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Roles updated", roles, ""));
+    }
+}
@@ -1,13 +1,12 @@
 package com.example.day2jwt.controller;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.example.day2jwt.service.JwtService;
+import com.example.day2jwt.model.VerifiedToken;
 
 import java.util.Map;
 
@@ -15,9 +14,6 @@ import java.util.Map;
 @RequestMapping("/api")
 public class ApiController {
 
-    @Autowired
-    private JwtService jwtService;
-
     // @GetMapping("/profile")
     // public Map<String, String> profile(@RequestHeader("Authorization") String
     // authHeader) {
@@ -25,25 +21,18 @@ public class ApiController {
     // }
 
     @GetMapping("/profile")
-    public ResponseEntity<Map<String, String>> profile(@RequestHeader("Authorization") String authHeader) {
-        try {
-            String token = authHeader.substring(7);
-            String type = jwtService.extractTokenType(token);
-
-            if (!"access".equals(type)) {
-                return ResponseEntity.status(403).body(Map.of("error", "Use access token, not refresh token"));
-            }
-
-            String username = jwtService.extractUsername(token);
-            if (username == null) {
-                return ResponseEntity.status(401).body(Map.of("error", "Invalid or expired token"));
-            }
-
-            return ResponseEntity.ok(Map.of("message", "Welcome " + username));
+    public ResponseEntity<Map<String, String>> profile(
+            @RequestAttribute(name = VerifiedToken.REQUEST_ATTRIBUTE, required = false) VerifiedToken token) {
+        // Token was already parsed and verified by JwtAuthFilter
+        if (token == null || token.getSubject() == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid or expired token"));
+        }
 
-        } catch (Exception e) {
-            return ResponseEntity.status(401).body(Map.of("error", "Invalid token or format"));
+        if (!token.isAccessToken()) {
+            return ResponseEntity.status(403).body(Map.of("error", "Use access token, not refresh token"));
         }
+
+        return ResponseEntity.ok(Map.of("message", "Welcome " + token.getSubject()));
     }
 
 }
@@ -0,0 +1,44 @@
+package com.example.day2jwt.controller;
+
+import com.example.day2jwt.dto.ApiResponse;
+import com.example.day2jwt.dto.IntrospectRequestDTO;
+import com.example.day2jwt.dto.TokenIntrospectionDTO;
+import com.example.day2jwt.service.TokenIntrospectionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class IntrospectionController {
+
+    private final TokenIntrospectionService tokenIntrospectionService;
+
+    /**
+     * Batch introspection endpoint — results are returned in request order.
+     * Callers authenticate like any API client (RFC 7662 section 2.1) and need
+     * the SERVICE role, so it is neither a public validity oracle nor free CPU.
+     */
+    @PreAuthorize("hasAnyRole('SERVICE', 'ADMIN')")
+    @PostMapping("/introspect")
+    public ResponseEntity<ApiResponse<List<TokenIntrospectionDTO>>> introspect(
+            @RequestBody @Valid IntrospectRequestDTO request) {
+        List<TokenIntrospectionDTO> results = tokenIntrospectionService.introspect(request.getTokens());
+
+        ApiResponse<List<TokenIntrospectionDTO>> response = new ApiResponse<>(
+                HttpStatus.OK.value(),
+                "Introspection completed",
+                results,
+                "");
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.day2jwt.controller;
+
+import com.example.day2jwt.service.SigningKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final SigningKeyRing signingKeyRing;
+
+    /**
+     * Public keys for verifying our tokens (empty for HS256). Cacheable: the next
+     * signing key is listed here a whole rotation interval before it signs, which
+     * SigningKeyRing keeps longer than this max-age.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(SigningKeyRing.JWKS_MAX_AGE).cachePublic())
+                .body(signingKeyRing.jwks());
+    }
+}
@@ -3,9 +3,13 @@ package com.example.day2jwt.controller;
 import com.example.day2jwt.dto.ApiResponse;
 import com.example.day2jwt.dto.UserRequestDTO;
 import com.example.day2jwt.dto.UserResponseDTO;
-import com.example.day2jwt.entity.UserEntity;
-import com.example.day2jwt.service.JwtService;
+import com.example.day2jwt.exception.ApiException;
+import com.example.day2jwt.exception.UnauthorizedException;
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.service.LoginRateLimiter;
+import com.example.day2jwt.service.TokenDenylist;
 import com.example.day2jwt.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -23,7 +27,8 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
-    private final JwtService jwtService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final TokenDenylist tokenDenylist;
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
@@ -31,7 +36,10 @@ public class UserController {
      * Signup endpoint — register new user
      */
     @PostMapping("/signup")
-    public ResponseEntity<ApiResponse<UserResponseDTO>> signup(@RequestBody @Valid UserRequestDTO request) {
+    public ResponseEntity<ApiResponse<UserResponseDTO>> signup(@RequestBody @Valid UserRequestDTO request,
+            HttpServletRequest httpRequest) {
+        // 429 before any hashing; behind a proxy set server.forward-headers-strategy for the real IP
+        loginRateLimiter.checkSignup(httpRequest.getRemoteAddr());
         userService.signup(request);
 
         ApiResponse<UserResponseDTO> response = new ApiResponse<>(
@@ -47,31 +55,26 @@ public class UserController {
      * Login endpoint — validate credentials & return JWT token
      */
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<UserResponseDTO>> login(@RequestBody @Valid UserRequestDTO request) {
+    public ResponseEntity<ApiResponse<UserResponseDTO>> login(@RequestBody @Valid UserRequestDTO request,
+            @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+            HttpServletRequest httpRequest) {
+        // Per-IP and per-username buckets, checked before the user lookup and BCrypt
+        loginRateLimiter.checkLogin(request.getUsername(), httpRequest.getRemoteAddr());
         try {
-            UserEntity user = userService.getByUsername(request.getUsername());
-
-            if (user == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ApiResponse<>(401, "User not found", null, "Sign up first"));
-            }
-
-            if (!userService.validatePassword(user, request.getPassword())) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ApiResponse<>(401, "Invalid credentials", null, "Check your password"));
-            }
-
-            String accessToken = jwtService.generateToken(user.getUsername());
-            String refreshToken = jwtService.generateRefreshToken(user.getUsername());
-            userService.saveRefreshToken(user.getUsername(), refreshToken);
+            // Unknown user / bad password surface as UnauthorizedException (401)
+            // One session per device; without X-Device-Id every login is a new session
+            UserResponseDTO tokens = userService.login(request.getUsername(), request.getPassword(), deviceId);
 
             ApiResponse<UserResponseDTO> response = new ApiResponse<>(
                     HttpStatus.OK.value(),
                     "Login successful",
-                    new UserResponseDTO(user.getUsername(), accessToken, refreshToken),
+                    tokens,
                     "");
             return ResponseEntity.ok(response);
 
+        } catch (ApiException e) {
+            // Mapped to its own status (e.g. 503 when the hashing pool is full) by GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             logger.error("Login error for user '{}': {}", request.getUsername(), e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -81,8 +84,9 @@ public class UserController {
 
     /**
      * Refresh token endpoint — issue new tokens
-     * Supports two modes:
-     * 1. Rotating (loop) mode — new refresh token generated every time.
+     * Supports two modes (jwt.refresh.rotate):
+     * 1. Rotating mode — new refresh token every time, old one is consumed;
+     * reusing a consumed token revokes the whole token family.
      * 2. Fixed (7-day) mode — only new access token generated until refresh token
      * expires.
      */
@@ -91,33 +95,17 @@ public class UserController {
         String refreshToken = request.get("refreshToken");
         logger.info("Refresh token request received");
 
-        // Extract username from refresh token
-        String username = jwtService.extractUsername(refreshToken);
-
-        // Validate refresh token with DB
-        if (!userService.validateRefreshToken(username, refreshToken)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new ApiResponse<>(401, "Invalid or expired refresh token", null, "Login required"));
-        }
-        // Generate new access token
-        String newAccessToken = jwtService.generateToken(username);
+        // Invalid, expired or replayed tokens surface as UnauthorizedException (401)
+        UserResponseDTO tokens = userService.refresh(refreshToken);
 
-        // Decide whether to rotate refresh token or not
-        boolean ROTATE_REFRESH_TOKENS = false; // Set true for loop mode, false for 7-day static mode
-
-        String newRefreshToken = refreshToken; // Default: same token (static mode)
-        String messageNote = "New access token generated using existing refresh token";
-
-        if (ROTATE_REFRESH_TOKENS) {
-            newRefreshToken = jwtService.generateRefreshToken(username);
-            userService.saveRefreshToken(username, newRefreshToken); // Replace in DB
-            messageNote = "New access and refresh tokens generated (rotation mode)";
-        }
+        String messageNote = tokens.getRefreshToken().equals(refreshToken)
+                ? "New access token generated using existing refresh token"
+                : "New access and refresh tokens generated (rotation mode)";
 
         ApiResponse<UserResponseDTO> response = new ApiResponse<>(
                 HttpStatus.OK.value(),
                 "Token refreshed successfully",
-                new UserResponseDTO(username, newAccessToken, newRefreshToken),
+                tokens,
                 messageNote);
 
         return ResponseEntity.ok(response);
@@ -128,11 +116,17 @@ public class UserController {
      */
 
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<Void>> logout(@RequestHeader("Authorization") String authHeader) {
-        String token = authHeader.substring(7);
-        String username = jwtService.extractUsername(token);
+    public ResponseEntity<ApiResponse<Void>> logout(
+            @RequestAttribute(name = VerifiedToken.REQUEST_ATTRIBUTE, required = false) VerifiedToken verifiedToken) {
+        // JwtAuthFilter leaves missing, expired and revoked tokens anonymous on /auth/**; re-parsing them
+        // here would only turn the JwtException into a 500
+        if (verifiedToken == null) {
+            throw new UnauthorizedException("Invalid or expired token");
+        }
 
-        userService.logout(username);
+        userService.logout(verifiedToken.getSubject());
+        // Stateless mode: the version entry covers all of the user's tokens, the jti this one exactly
+        tokenDenylist.revoke(verifiedToken);
 
         ApiResponse<Void> response = new ApiResponse<>(
                 HttpStatus.OK.value(),
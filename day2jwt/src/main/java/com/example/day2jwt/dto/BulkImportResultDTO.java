@@ -0,0 +1,27 @@
+package com.example.day2jwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Outcome of a bulk user import; errors holds the first failed rows only
+@Data
+@AllArgsConstructor
+public class BulkImportResultDTO {
+
+    private long received;
+    private long created;
+    private long failed;
+    private long durationMs;
+    private List<RowError> errors;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        // 1-based line in the uploaded body
+        private long line;
+        private String username;
+        private String error;
+    }
+}
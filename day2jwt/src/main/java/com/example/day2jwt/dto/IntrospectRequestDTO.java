@@ -0,0 +1,13 @@
+package com.example.day2jwt.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class IntrospectRequestDTO {
+
+    @NotEmpty(message = "At least one token is required")
+    private List<String> tokens;
+}
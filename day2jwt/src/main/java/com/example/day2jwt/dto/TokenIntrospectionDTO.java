@@ -0,0 +1,23 @@
+package com.example.day2jwt.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// RFC 7662-style result; inactive tokens carry no other fields
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenIntrospectionDTO {
+
+    private boolean active;
+    private String sub;
+    private String type;
+    private Integer tokenVersion;
+    private Long iat;
+    private Long exp;
+
+    public static TokenIntrospectionDTO inactive() {
+        return new TokenIntrospectionDTO(false, null, null, null, null, null);
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.day2jwt.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 @Data
 public class UserRequestDTO {
 
     @NotBlank(message = "Username is required")
+    // Newline-separated lists of usernames are sent between instances
+    @Pattern(regexp = "[^\\p{Cntrl}]*", message = "Username must not contain control characters")
     private String username;
 
     @NotBlank(message = "Password is required")
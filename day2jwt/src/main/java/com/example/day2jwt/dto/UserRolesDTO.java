@@ -0,0 +1,18 @@
+package com.example.day2jwt.dto;
+
+import com.example.day2jwt.utils.RoleEnum;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRolesDTO {
+
+    @NotEmpty(message = "At least one role is required")
+    private Set<RoleEnum> roles;
+}
@@ -0,0 +1,31 @@
+package com.example.day2jwt.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Heartbeat row per running instance. The number of fresh rows is the cluster
+ * size that per-instance limits (login rate limiting) are divided by.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "cluster_nodes", indexes = {
+        @Index(name = "idx_cluster_nodes_last_seen", columnList = "last_seen")
+})
+public class ClusterNodeEntity {
+
+    @Id
+    @Column(name = "node_id", length = 36)
+    private String nodeId;
+
+    @Column(name = "last_seen", nullable = false)
+    private Instant lastSeen;
+}
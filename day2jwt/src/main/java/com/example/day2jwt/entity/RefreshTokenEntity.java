@@ -0,0 +1,62 @@
+package com.example.day2jwt.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.Instant;
+
+/**
+ * One row per active session (device). Only a SHA-256 of the refresh token is
+ * stored, so a leaked table can't be replayed and lookups hit a fixed-size
+ * unique index instead of comparing 512-char strings.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_refresh_tokens_user_session", columnList = "user_id, session_id"),
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id")
+})
+public class RefreshTokenEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // Plain id, not a relation: the refresh path never needs the user row
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "session_id", nullable = false, length = 64)
+    private String sessionId;
+
+    // All tokens descending from one login share a family; reuse of a rotated token revokes it
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    // Set when the token is rotated; a rotated token presented again is a replay
+    @Column(name = "consumed_at")
+    private Instant consumedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private Instant createdAt;
+}
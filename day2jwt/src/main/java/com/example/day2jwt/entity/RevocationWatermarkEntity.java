@@ -0,0 +1,32 @@
+package com.example.day2jwt.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * "Not valid before" for every token in a scope: "global", or a role name for
+ * tokens carrying that role. Revoking a scope rewrites its single row, never
+ * the users table.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@Table(name = "revocation_watermarks")
+public class RevocationWatermarkEntity {
+
+    @Id
+    @Column(length = 32)
+    private String scope;
+
+    @Column(name = "not_before", nullable = false)
+    private Instant notBefore;
+}
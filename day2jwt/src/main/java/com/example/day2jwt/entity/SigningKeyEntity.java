@@ -0,0 +1,40 @@
+package com.example.day2jwt.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One asymmetric signing key per rotation slot, shared by every instance.
+ * Slot n signs from n * rotation-interval on; the private key is stored
+ * encrypted with a key derived from jwt.secret.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@Table(name = "signing_keys")
+public class SigningKeyEntity {
+
+    @Id
+    private Long slot;
+
+    @Column(nullable = false, length = 36)
+    private String kid;
+
+    @Column(nullable = false, length = 8)
+    private String algorithm;
+
+    // X.509 SubjectPublicKeyInfo
+    @Column(name = "public_key", nullable = false, length = 4096)
+    private byte[] publicKey;
+
+    // AES-GCM nonce followed by the encrypted PKCS#8 private key
+    @Column(name = "private_key", nullable = false, length = 4096)
+    private byte[] privateKey;
+}
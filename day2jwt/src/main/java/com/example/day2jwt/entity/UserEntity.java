@@ -7,6 +7,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -37,6 +38,12 @@ public class UserEntity {
     @Builder.Default
     private Integer tokenVersion = 0;
 
+    // RoleEnum bit mask; copied into tokens at login
+    @Column(nullable = false)
+    @ColumnDefault("1")
+    @Builder.Default
+    private Integer roles = 1;
+
     @CreatedDate
     @Column(name = "created_at", updatable = false, nullable = false)
     private Instant createdAt;
@@ -44,7 +51,4 @@ public class UserEntity {
     @LastModifiedDate
     @Column(name = "updated_at")
     private Instant updatedAt;
-
-    @Column(name = "refresh_token", length = 512)
-    private String refreshToken;
 }
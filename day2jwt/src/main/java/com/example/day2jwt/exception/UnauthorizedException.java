@@ -0,0 +1,11 @@
+package com.example.day2jwt.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNAUTHORIZED)
+public class UnauthorizedException extends ApiException {
+    public UnauthorizedException(String message) {
+        super(message);
+    }
+}
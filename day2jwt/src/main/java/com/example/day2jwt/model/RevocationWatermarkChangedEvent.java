@@ -0,0 +1,13 @@
+package com.example.day2jwt.model;
+
+import lombok.Value;
+
+/**
+ * Published when a revocation watermark moves forward, so other nodes stop
+ * accepting the scope's older tokens too.
+ */
+@Value
+public class RevocationWatermarkChangedEvent {
+    String scope;
+    long notBeforeMs;
+}
@@ -0,0 +1,13 @@
+package com.example.day2jwt.model;
+
+import lombok.Value;
+
+/**
+ * Published when a user's tokenVersion is bumped (logout), so other nodes
+ * can drop tokens they still consider valid.
+ */
+@Value
+public class TokenVersionChangedEvent {
+    String username;
+    int tokenVersion;
+}
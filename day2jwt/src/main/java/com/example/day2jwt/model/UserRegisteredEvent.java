@@ -0,0 +1,14 @@
+package com.example.day2jwt.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published after new users are saved (one from signup, many from a bulk
+ * import), so every instance can add the names to its UsernameRegistry.
+ */
+@Value
+public class UserRegisteredEvent {
+    List<String> usernames;
+}
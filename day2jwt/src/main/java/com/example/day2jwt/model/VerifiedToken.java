@@ -0,0 +1,38 @@
+package com.example.day2jwt.model;
+
+import io.jsonwebtoken.Claims;
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * A bearer token whose signature and expiry have already been checked.
+ * Built once by JwtAuthFilter and stored on the request so controllers
+ * don't have to parse the token again.
+ */
+@Value
+public class VerifiedToken {
+
+    public static final String REQUEST_ATTRIBUTE = "com.example.day2jwt.model.VerifiedToken";
+
+    String token;
+    // jti; null for tokens issued before access tokens carried one
+    String id;
+    String subject;
+    String type;
+    int tokenVersion;
+    // RoleEnum bit mask from the "rol" claim
+    int roles;
+    Date issuedAt;
+    Date expiration;
+    // Null when decoded by the HS256 fast codec (jwt.fast-codec.enabled), which builds no claims map
+    Claims claims;
+
+    public boolean isAccessToken() {
+        return "access".equals(type);
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.day2jwt.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.day2jwt.entity.ClusterNodeEntity;
+
+import java.time.Instant;
+
+public interface ClusterNodeRepository extends JpaRepository<ClusterNodeEntity, String> {
+
+    long countByLastSeenAfter(Instant since);
+
+    // Plain update so a heartbeat doesn't load the row first; 0 means the row is gone
+    @Transactional
+    @Modifying
+    @Query("update ClusterNodeEntity n set n.lastSeen = :now where n.nodeId = :nodeId")
+    int touch(@Param("nodeId") String nodeId, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ClusterNodeEntity n where n.lastSeen < :before")
+    int deleteStale(@Param("before") Instant before);
+}
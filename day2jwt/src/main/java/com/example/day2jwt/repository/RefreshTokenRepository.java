@@ -0,0 +1,47 @@
+package com.example.day2jwt.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.day2jwt.entity.RefreshTokenEntity;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, Long> {
+
+    boolean existsByTokenHashAndConsumedAtIsNullAndExpiresAtAfter(String tokenHash, Instant now);
+
+    Optional<RefreshTokenEntity> findByTokenHash(String tokenHash);
+
+    // Compare-and-swap: only one concurrent refresh can consume a token
+    @Transactional
+    @Modifying
+    @Query("update RefreshTokenEntity r set r.consumedAt = :now where r.id = :id and r.consumedAt is null")
+    int markConsumed(@Param("id") Long id, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshTokenEntity r where r.familyId = :familyId")
+    int deleteFamily(@Param("familyId") String familyId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshTokenEntity r where r.userId = :userId and r.sessionId = :sessionId")
+    int deleteSession(@Param("userId") Long userId, @Param("sessionId") String sessionId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshTokenEntity r where r.userId = :userId")
+    int deleteAllForUser(@Param("userId") Long userId);
+
+    // Bounded batch so the cleanup job never holds long locks on a large table
+    @Transactional
+    @Modifying
+    @Query(value = "delete from refresh_tokens where id in "
+            + "(select id from refresh_tokens where expires_at < :now limit :batchSize)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,8 @@
+package com.example.day2jwt.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.example.day2jwt.entity.RevocationWatermarkEntity;
+
+public interface RevocationWatermarkRepository extends JpaRepository<RevocationWatermarkEntity, String> {
+}
@@ -0,0 +1,30 @@
+package com.example.day2jwt.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.day2jwt.entity.SigningKeyEntity;
+
+import java.util.List;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKeyEntity, Long> {
+
+    List<SigningKeyEntity> findBySlotGreaterThanEqualOrderBySlot(long slot);
+
+    // Insert only: save() would merge and overwrite a key another instance already uses.
+    // Two instances creating the same slot collide on the primary key; the loser reloads.
+    @Transactional
+    @Modifying
+    @Query(value = "insert into signing_keys (slot, kid, algorithm, public_key, private_key)"
+            + " values (:slot, :kid, :algorithm, :publicKey, :privateKey)", nativeQuery = true)
+    int insert(@Param("slot") long slot, @Param("kid") String kid, @Param("algorithm") String algorithm,
+            @Param("publicKey") byte[] publicKey, @Param("privateKey") byte[] privateKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SigningKeyEntity k where k.slot < :slot")
+    int deleteBySlotBefore(@Param("slot") long slot);
+}
@@ -1,11 +1,49 @@
 package com.example.day2jwt.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.day2jwt.entity.UserEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
+    // Read-only: Hibernate skips the dirty-checking snapshot and never flushes the loaded entity
+    @Transactional(readOnly = true)
     Optional<UserEntity> findByUsername(String username);
+
+    // Only the column the auth filter needs, no entity hydration. Deliberately not wrapped in a
+    // read-only transaction: a scalar has nothing to snapshot, and BEGIN/COMMIT would cost a round trip.
+    @Query("select u.tokenVersion from UserEntity u where u.username = :username")
+    Optional<Integer> findTokenVersionByUsername(@Param("username") String username);
+
+    // Batch tokenVersion lookup for introspection, one query for many users
+    @Transactional(readOnly = true)
+    List<UsernameTokenVersion> findAllByUsernameIn(Collection<String> usernames);
+
+    interface UsernameTokenVersion {
+        String getUsername();
+
+        Integer getTokenVersion();
+    }
+
+    // Every username for the startup Bloom filter build; fetched in pages, caller holds a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.username from UserEntity u")
+    Stream<String> streamAllUsernames();
+
+    // Single-column update used when a hash is upgraded on login
+    @Transactional
+    @Modifying
+    @Query("update UserEntity u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
@@ -0,0 +1,71 @@
+package com.example.day2jwt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the authentication hot path. Everything is registered up front so
+ * recording is a field read plus an add, never a registry lookup. Histogram
+ * buckets are configured in application.properties (management.metrics.distribution.*).
+ */
+@Component
+public class AuthMetrics {
+
+    public enum FailureReason {
+        EXPIRED, BAD_SIGNATURE, MALFORMED, UNSUPPORTED, VERSION_MISMATCH, UNKNOWN_USER, WRONG_TYPE, REVOKED;
+
+        final String tag = name().toLowerCase();
+    }
+
+    private final Timer tokenVerifyTimer;
+    private final Timer tokenVersionLookupTimer;
+    private final Counter accessTokensIssued;
+    private final Counter refreshTokensIssued;
+    private final Map<FailureReason, Counter> failures = new EnumMap<>(FailureReason.class);
+
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        this.tokenVerifyTimer = Timer.builder("auth.token.verify")
+                .description("Signature verification and claim parsing (verification-cache misses only)")
+                .register(meterRegistry);
+        this.tokenVersionLookupTimer = Timer.builder("auth.token.version.lookup")
+                .description("DB lookup of a user's tokenVersion on a cache miss")
+                .register(meterRegistry);
+        this.accessTokensIssued = Counter.builder("auth.tokens.issued").tag("type", "access")
+                .register(meterRegistry);
+        this.refreshTokensIssued = Counter.builder("auth.tokens.issued").tag("type", "refresh")
+                .register(meterRegistry);
+        for (FailureReason reason : FailureReason.values()) {
+            failures.put(reason, Counter.builder("auth.token.failures")
+                    .description("Rejected bearer tokens by reason")
+                    .tag("reason", reason.tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    public void recordVerify(long startNanos) {
+        tokenVerifyTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T timeTokenVersionLookup(Supplier<T> lookup) {
+        return tokenVersionLookupTimer.record(lookup);
+    }
+
+    public void recordFailure(FailureReason reason) {
+        failures.get(reason).increment();
+    }
+
+    public void recordIssued(boolean access) {
+        (access ? accessTokensIssued : refreshTokensIssued).increment();
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.dto.BulkImportResultDTO;
+import com.example.day2jwt.model.UserRegisteredEvent;
+import com.example.day2jwt.utils.RoleEnum;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bulk signup for account migrations. The body is read line by line (NDJSON
+ * objects or CSV rows) and processed in chunks: one IN query finds names that
+ * already exist, passwords are hashed in parallel on a dedicated fork-join pool,
+ * and the chunk is written with a single JDBC batch insert. Users have IDENTITY
+ * keys, which keeps Hibernate from batching, so the insert bypasses JPA.
+ *
+ * Bad rows are reported with their line number and never fail the import. If a
+ * batch hits a unique violation (a concurrent signup), that chunk is retried row
+ * by row so only the conflicting rows fail.
+ */
+@Service
+public class BulkUserImportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkUserImportService.class);
+
+    private static final String INSERT_SQL = "insert into users (username, password, token_version, roles, created_at, updated_at)"
+            + " values (?, ?, 0, ?, ?, ?)";
+    // Same default as signup
+    private static final int DEFAULT_ROLES = RoleEnum.USER.bit();
+    // users.username is a default varchar(255)
+    private static final int MAX_USERNAME_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ForkJoinPool hashingPool;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    private record Row(long line, String username, String password) {
+    }
+
+    // Running totals for one import
+    private static final class Report {
+        private long received;
+        private long failed;
+        private long created;
+        private final List<BulkImportResultDTO.RowError> errors = new ArrayList<>();
+    }
+
+    public BulkUserImportService(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            PasswordEncoder passwordEncoder,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${auth.bulk-import.hash-threads:0}") int hashThreads,
+            @Value("${auth.bulk-import.batch-size:1000}") int batchSize,
+            @Value("${auth.bulk-import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        // Separate from the login hashing pool so an import can't starve interactive logins of its queue.
+        // Default: a quarter of the cores, i.e. half of what the login pool (half the cores) leaves to
+        // request threads, so an import never runs BCrypt on every core
+        this.hashingPool = new ForkJoinPool(hashThreads > 0
+                ? hashThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 4));
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    public BulkImportResultDTO importUsers(Reader body, Format format) throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report();
+        // Duplicates inside the upload itself; only names are kept, not passwords
+        Set<String> seen = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(batchSize);
+
+        BufferedReader reader = body instanceof BufferedReader buffered ? buffered : new BufferedReader(body);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            report.received++;
+            Row row;
+            try {
+                row = format == Format.CSV ? parseCsv(lineNumber, line) : parseJson(lineNumber, line);
+            } catch (IllegalArgumentException e) {
+                fail(report, lineNumber, null, e.getMessage());
+                continue;
+            }
+            String invalid = validate(row);
+            if (invalid != null) {
+                fail(report, row.line(), row.username(), invalid);
+                continue;
+            }
+            if (!seen.add(row.username())) {
+                fail(report, row.line(), row.username(), "Duplicate username in import");
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                processChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, report);
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Bulk import: {} rows, {} created, {} failed in {} ms",
+                report.received, report.created, report.failed, durationMs);
+        return new BulkImportResultDTO(report.received, report.created, report.failed, durationMs,
+                report.errors);
+    }
+
+    // Each chunk is announced as soon as it commits: its users can log in (on every node) while the rest
+    // of the upload is still running, and even if the import aborts later
+    private void processChunk(List<Row> chunk, Report report) {
+        List<String> created = insertChunk(chunk, report);
+        if (!created.isEmpty()) {
+            report.created += created.size();
+            eventPublisher.publishEvent(new UserRegisteredEvent(created));
+        }
+    }
+
+    // Usernames committed by this chunk
+    private List<String> insertChunk(List<Row> chunk, Report report) {
+        Set<String> existing = existingUsernames(chunk);
+        List<Row> rows = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existing.contains(row.username())) {
+                fail(report, row.line(), row.username(), "Username already exists");
+            } else {
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> hashes = hashAll(rows);
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL,
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ps.setString(1, rows.get(i).username());
+                            ps.setString(2, hashes.get(i));
+                            ps.setInt(3, DEFAULT_ROLES);
+                            ps.setTimestamp(4, now);
+                            ps.setTimestamp(5, now);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return rows.size();
+                        }
+                    }));
+            return rows.stream().map(Row::username).toList();
+        } catch (DataIntegrityViolationException e) {
+            // Someone signed up one of these names meanwhile; find out which, row by row
+            List<String> created = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                String hash = hashes.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(
+                            status -> jdbcTemplate.update(INSERT_SQL, row.username(), hash, DEFAULT_ROLES, now, now));
+                    created.add(row.username());
+                } catch (DataIntegrityViolationException rowError) {
+                    fail(report, row.line(), row.username(), "Username already exists");
+                }
+            }
+            return created;
+        }
+    }
+
+    // One query per chunk instead of a SELECT per row
+    private Set<String> existingUsernames(List<Row> rows) {
+        String placeholders = String.join(", ", Collections.nCopies(rows.size(), "?"));
+        Object[] usernames = rows.stream().map(Row::username).toArray();
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "select username from users where username in (" + placeholders + ")", String.class, usernames));
+    }
+
+    // BCrypt dominates the import; spread it over the pool, results keep row order
+    private List<String> hashAll(List<Row> rows) {
+        try {
+            return hashingPool.submit(() -> rows.parallelStream()
+                    .map(row -> passwordEncoder.encode(row.password()))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private void fail(Report report, long line, String username, String error) {
+        report.failed++;
+        if (report.errors.size() < maxReportedErrors) {
+            report.errors.add(new BulkImportResultDTO.RowError(line, username, error));
+        }
+    }
+
+    private static String validate(Row row) {
+        if (row.username() == null || row.username().isBlank()) {
+            return "Username is required";
+        }
+        if (row.password() == null || row.password().isBlank()) {
+            return "Password is required";
+        }
+        if (row.username().length() > MAX_USERNAME_LENGTH) {
+            return "Username is longer than " + MAX_USERNAME_LENGTH + " characters";
+        }
+        if (row.username().chars().anyMatch(Character::isISOControl)) {
+            return "Username must not contain control characters";
+        }
+        return null;
+    }
+
+    private Row parseJson(long line, String text) {
+        try {
+            JsonNode node = objectMapper.readTree(text);
+            if (node == null || !node.isObject()) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            return new Row(line, textOrNull(node, "username"), textOrNull(node, "password"));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && value.isTextual() ? value.asText() : null;
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase(Locale.ROOT).startsWith("username,");
+    }
+
+    // username,password per line; fields may be double-quoted with "" as an escaped quote
+    private static Row parseCsv(long line, String text) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        if (fields.size() != 2) {
+            throw new IllegalArgumentException("Expected 2 columns (username,password), got " + fields.size());
+        }
+        return new Row(line, fields.get(0).trim(), fields.get(1));
+    }
+}
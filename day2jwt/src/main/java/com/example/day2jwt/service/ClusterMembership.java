@@ -0,0 +1,87 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.entity.ClusterNodeEntity;
+import com.example.day2jwt.repository.ClusterNodeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Tracks how many instances share the database, via one heartbeat row per
+ * instance in cluster_nodes. Limits that are meant for the whole cluster (login
+ * rate limiting) divide by nodeCount() so N instances together allow about the
+ * configured rate. If the database is unreachable the last known count is kept.
+ */
+@Component
+public class ClusterMembership {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMembership.class);
+
+    // A node is considered gone after missing this many heartbeats
+    private static final int MISSED_HEARTBEATS = 3;
+
+    private final ClusterNodeRepository clusterNodeRepository;
+    private final boolean enabled;
+    private final long heartbeatIntervalMs;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile int nodeCount = 1;
+
+    public ClusterMembership(ClusterNodeRepository clusterNodeRepository,
+            @Value("${auth.cluster.enabled:true}") boolean enabled,
+            @Value("${auth.cluster.heartbeat-interval:10000}") long heartbeatIntervalMs) {
+        this.clusterNodeRepository = clusterNodeRepository;
+        this.enabled = enabled;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.cluster.heartbeat-interval:10000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        Instant now = Instant.now();
+        try {
+            if (clusterNodeRepository.touch(nodeId, now) == 0) {
+                clusterNodeRepository.save(new ClusterNodeEntity(nodeId, now));
+            }
+            Instant cutoff = now.minusMillis(heartbeatIntervalMs * MISSED_HEARTBEATS);
+            clusterNodeRepository.deleteStale(cutoff);
+            int count = (int) Math.max(1, clusterNodeRepository.countByLastSeenAfter(cutoff));
+            if (count != nodeCount) {
+                logger.info("Cluster size changed: {} -> {} node(s)", nodeCount, count);
+                nodeCount = count;
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Cluster heartbeat failed, keeping node count {}: {}", nodeCount, e.getMessage());
+        }
+    }
+
+    // Leave right away instead of waiting for the row to go stale
+    @PreDestroy
+    public void leave() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            clusterNodeRepository.deleteById(nodeId);
+        } catch (DataAccessException e) {
+            logger.debug("Could not remove cluster node row: {}", e.getMessage());
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package com.example.day2jwt.service;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.example.day2jwt.entity.UserEntity;
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.utils.Hs256JwtCodec;
+import com.example.day2jwt.utils.RoleEnum;
+import com.example.day2jwt.utils.TokenPrecheck;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    // Role bit mask (see RoleEnum); an int keeps the claim a few bytes long
+    public static final String ROLES_CLAIM = "rol";
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SigningKeyRing signingKeyRing;
+    private final AuthMetrics authMetrics;
+    private final RevocationWatermarks revocationWatermarks;
 
     @Value("${jwt.access.expiration}")
     private Long jwtAccessTokenExpirationMs;
@@ -24,20 +37,62 @@ public class JwtService {
     @Value("${jwt.refresh.expiration}")
     private Long jwtRefreshTokenExpirationMs;
 
-    // Generate signing key
-    private Key getSignKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+    // Anything longer is rejected before parsing (initialized for callers that skip injection)
+    @Value("${jwt.max-token-length:8192}")
+    private int maxTokenLength = 8192;
+
+    // Hand-rolled HS256 encode/verify for our own token shape; jjwt still handles everything else
+    @Value("${jwt.fast-codec.enabled:false}")
+    private boolean fastCodecEnabled;
+
+    private static final Consumer<AuthMetrics.FailureReason> IGNORE_FAILURE = reason -> {
+    };
+
+    // Bound to the key it was built for, so a reloaded secret gets a new codec
+    private record FastCodec(SigningKeyRing.SigningKey key, Hs256JwtCodec codec) {
+    }
+
+    private volatile FastCodec fastCodec;
+
+    // Immutable and thread-safe; keys are looked up per token by kid, so it survives rotation
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(signingKeyRing)
+                .build();
+    }
+
+    // New HS256 secret (SigningSecretWatcher); tokens verified with the old key must be checked again
+    public boolean reloadSigningKey(String secret) {
+        if (!signingKeyRing.reloadSecret(secret)) {
+            return false;
+        }
+        verifiedTokenCache.clear();
+        return true;
+    }
+
+    // Current key; kid header only for rotated (asymmetric) keys
+    private JwtBuilder signed(JwtBuilder builder) {
+        SigningKeyRing.SigningKey key = signingKeyRing.current();
+        if (key.kid() != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, key.kid());
+        }
+        return builder.signWith(key.signingKey(), key.algorithm());
     }
 
     // Generate JWT token with optional claims
     public String generateAccessToken(String username, Map<String, Object> extraClaims) {
-        return Jwts.builder()
+        authMetrics.recordIssued(true);
+        // jti lets stateless mode revoke this one token (TokenDenylist)
+        return signed(Jwts.builder()
                 .setClaims(extraClaims)
+                .setId(UUID.randomUUID().toString())
                 .claim("type", "access")
                 .setSubject(username)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + jwtAccessTokenExpirationMs))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + jwtAccessTokenExpirationMs)))
                 .compact();
     }
 
@@ -45,13 +100,56 @@ public class JwtService {
         return generateAccessToken(username, Map.of());
     }
 
+    // Access token bound to the user's current tokenVersion, so it survives until the next logout
+    public String generateToken(String username, int tokenVersion) {
+        return generateToken(username, tokenVersion, RoleEnum.USER.bit());
+    }
+
+    // Roles travel in the token so the filter can authorize without a lookup
+    public String generateToken(String username, int tokenVersion, int roles) {
+        Hs256JwtCodec codec = fastCodec();
+        if (codec != null) {
+            long now = System.currentTimeMillis();
+            String token = codec.encodeAccess(UUID.randomUUID().toString(), username, tokenVersion, roles,
+                    now / 1000, (now + jwtAccessTokenExpirationMs) / 1000);
+            if (token != null) {
+                authMetrics.recordIssued(true);
+                return token;
+            }
+        }
+        return generateAccessToken(username, Map.of("tokenVersion", tokenVersion, ROLES_CLAIM, roles));
+    }
+
+    public long getRefreshTokenExpirationMs() {
+        return jwtRefreshTokenExpirationMs;
+    }
+
     public String generateRefreshToken(String username) {
-        return Jwts.builder()
+        return generateRefreshToken(username, RoleEnum.USER.bit());
+    }
+
+    // Carries the roles too, so a refresh can mint the access token without reloading the user.
+    // They grant nothing by themselves: JwtAuthFilter only accepts access tokens.
+    public String generateRefreshToken(String username, int roles) {
+        authMetrics.recordIssued(false);
+        // Random jti: two logins in the same second must still get distinct tokens (and hashes)
+        String jti = UUID.randomUUID().toString();
+        Hs256JwtCodec codec = fastCodec();
+        if (codec != null) {
+            long now = System.currentTimeMillis();
+            String token = codec.encodeRefresh(jti, username, roles, now / 1000,
+                    (now + jwtRefreshTokenExpirationMs) / 1000);
+            if (token != null) {
+                return token;
+            }
+        }
+        return signed(Jwts.builder()
+                .setId(jti)
                 .claim("type", "refresh")
+                .claim(ROLES_CLAIM, roles)
                 .setSubject(username)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + jwtRefreshTokenExpirationMs))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + jwtRefreshTokenExpirationMs)))
                 .compact();
     }
 
@@ -67,8 +165,94 @@ public class JwtService {
     }
 
     public Integer extractTokenVersion(String token) {
-        Object version = parseToken(token).getBody().get("tokenVersion");
-        return version != null ? Integer.parseInt(version.toString()) : 0;
+        return readTokenVersion(parseToken(token).getBody());
+    }
+
+    /**
+     * Verifies the token that starts at offset in source (e.g. an Authorization header).
+     * Garbage, foreign-alg and visibly expired tokens are turned away by a structural
+     * precheck without allocating or throwing; only plausible tokens are cut out of
+     * the header and parsed.
+     */
+    public VerifiedToken verify(String source, int offset) {
+        return verify(source, offset, IGNORE_FAILURE);
+    }
+
+    // Same, and tells onFailure why a null was returned (e.g. to pick the error response)
+    public VerifiedToken verify(String source, int offset, Consumer<AuthMetrics.FailureReason> onFailure) {
+        TokenPrecheck.Result shape = TokenPrecheck.check(source, offset, maxTokenLength,
+                signingKeyRing.current().algorithm().getValue(), System.currentTimeMillis());
+        if (shape == TokenPrecheck.Result.OK) {
+            return verify(source.substring(offset), onFailure);
+        }
+        AuthMetrics.FailureReason reason = switch (shape) {
+            case EXPIRED -> AuthMetrics.FailureReason.EXPIRED;
+            case UNSUPPORTED -> AuthMetrics.FailureReason.UNSUPPORTED;
+            default -> AuthMetrics.FailureReason.MALFORMED;
+        };
+        authMetrics.recordFailure(reason);
+        onFailure.accept(reason);
+        return null;
+    }
+
+    // Parse the token once and keep everything the request path needs.
+    // Returns null for expired, tampered or malformed tokens.
+    public VerifiedToken verify(String token) {
+        return verify(token, IGNORE_FAILURE);
+    }
+
+    private VerifiedToken verify(String token, Consumer<AuthMetrics.FailureReason> onFailure) {
+        VerifiedToken cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            if (cached.isExpired()) {
+                onFailure.accept(AuthMetrics.FailureReason.EXPIRED);
+                return null;
+            }
+            return cached;
+        }
+
+        long start = authMetrics.startTimer();
+        Hs256JwtCodec codec = fastCodec();
+        if (codec != null) {
+            Hs256JwtCodec.Decoded decoded = codec.decode(token, System.currentTimeMillis());
+            if (decoded.outcome() != Hs256JwtCodec.Outcome.FALLBACK) {
+                authMetrics.recordVerify(start);
+                if (decoded.outcome() == Hs256JwtCodec.Outcome.OK) {
+                    verifiedTokenCache.put(decoded.token());
+                    return decoded.token();
+                }
+                AuthMetrics.FailureReason reason = decoded.outcome() == Hs256JwtCodec.Outcome.EXPIRED
+                        ? AuthMetrics.FailureReason.EXPIRED
+                        : AuthMetrics.FailureReason.BAD_SIGNATURE;
+                authMetrics.recordFailure(reason);
+                onFailure.accept(reason);
+                return null;
+            }
+        }
+
+        Claims claims;
+        try {
+            claims = parseToken(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            AuthMetrics.FailureReason reason = failureReason(e);
+            authMetrics.recordFailure(reason);
+            onFailure.accept(reason);
+            return null;
+        } finally {
+            authMetrics.recordVerify(start);
+        }
+        VerifiedToken verifiedToken = new VerifiedToken(
+                token,
+                claims.getId(),
+                claims.getSubject(),
+                (String) claims.get("type"),
+                readTokenVersion(claims),
+                readRoles(claims),
+                claims.getIssuedAt(),
+                claims.getExpiration(),
+                claims);
+        verifiedTokenCache.put(verifiedToken);
+        return verifiedToken;
     }
 
     // Extract expiration date from token
@@ -90,9 +274,7 @@ public class JwtService {
     // Parse and validate token
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSignKey())
-                    .build()
+            return parser
                     .parseClaimsJws(token)
                     .getBody();
         } catch (JwtException e) {
@@ -101,12 +283,30 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, UserEntity user) {
-        final String extractedUsername = extractUsername(token);
-        final Integer extractedVersion = extractTokenVersion(token);
+        return isTokenValid(verify(token), user);
+    }
+
+    public boolean isTokenValid(VerifiedToken token, UserEntity user) {
+        return token != null
+                && token.getSubject() != null
+                && token.getSubject().equals(user.getUsername())
+                && isTokenValid(token, user.getTokenVersion());
+    }
+
+    // For callers that already looked up the subject's current tokenVersion
+    public boolean isTokenValid(VerifiedToken token, Integer currentTokenVersion) {
+        return token != null
+                && currentTokenVersion != null
+                && token.getTokenVersion() == currentTokenVersion
+                && !token.isExpired()
+                && revocationWatermarks.accepts(token);
+    }
 
-        return extractedUsername.equals(user.getUsername())
-                && extractedVersion.equals(user.getTokenVersion())
-                && !isTokenExpired(token);
+    // Without the per-user tokenVersion: expiry and the global/role revocation watermarks only
+    public boolean isTokenValid(VerifiedToken token) {
+        return token != null
+                && !token.isExpired()
+                && revocationWatermarks.accepts(token);
     }
 
     public boolean isRefreshTokenValid(String token, UserEntity user) {
@@ -118,10 +318,48 @@ public class JwtService {
         return extractExpiration(token).before(new Date());
     }
 
+    private static AuthMetrics.FailureReason failureReason(RuntimeException e) {
+        if (e instanceof ExpiredJwtException) {
+            return AuthMetrics.FailureReason.EXPIRED;
+        }
+        if (e instanceof SecurityException || e instanceof io.jsonwebtoken.SignatureException) {
+            return AuthMetrics.FailureReason.BAD_SIGNATURE;
+        }
+        if (e instanceof UnsupportedJwtException) {
+            return AuthMetrics.FailureReason.UNSUPPORTED;
+        }
+        return AuthMetrics.FailureReason.MALFORMED;
+    }
+
+    // Null when disabled or when the current key is not a kid-less HS256 secret
+    private Hs256JwtCodec fastCodec() {
+        if (!fastCodecEnabled) {
+            return null;
+        }
+        SigningKeyRing.SigningKey key = signingKeyRing.current();
+        FastCodec current = fastCodec;
+        if (current == null || current.key() != key) {
+            if (key.kid() != null || key.algorithm() != SignatureAlgorithm.HS256) {
+                return null;
+            }
+            current = new FastCodec(key, new Hs256JwtCodec(key.signingKey(), RoleEnum.USER.bit()));
+            fastCodec = current;
+        }
+        return current.codec();
+    }
+
+    private int readTokenVersion(Claims claims) {
+        Object version = claims.get("tokenVersion");
+        return version != null ? Integer.parseInt(version.toString()) : 0;
+    }
+
+    // Tokens issued before roles existed belong to plain users
+    private int readRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        return roles instanceof Number number ? number.intValue() : RoleEnum.USER.bit();
+    }
+
     private Jws<Claims> parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
     }
 }
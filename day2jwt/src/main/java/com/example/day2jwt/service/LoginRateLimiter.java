@@ -0,0 +1,129 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Throttles /auth/login and /auth/signup per client IP and per username before
+ * any BCrypt work or DB lookup happens.
+ *
+ * Each key is a token bucket kept as a single AtomicLong (GCRA: the time at which
+ * the bucket will be full again), updated with a CAS loop, so there are no locks
+ * and the map's own striping is the only contention. Buckets live in a bounded
+ * Caffeine cache and are dropped once idle; an idle bucket is full anyway, so
+ * eviction never forgives anything. Rates are cluster-wide: each instance
+ * allows rate / ClusterMembership.nodeCount().
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final Function<String, AtomicLong> NEW_BUCKET = key -> new AtomicLong(System.nanoTime());
+
+    private final boolean enabled;
+    private final Limit ipLimit;
+    private final Limit userLimit;
+    private final ClusterMembership clusterMembership;
+    private final Cache<String, AtomicLong> ipBuckets;
+    private final Cache<String, AtomicLong> userBuckets;
+    private final Counter ipRejected;
+    private final Counter userRejected;
+
+    // burst requests at once, then one every (60s / perMinute)
+    record Limit(int burst, int perMinute) {
+    }
+
+    public LoginRateLimiter(@Value("${auth.rate-limit.enabled:true}") boolean enabled,
+            @Value("${auth.rate-limit.ip.burst:20}") int ipBurst,
+            @Value("${auth.rate-limit.ip.per-minute:60}") int ipPerMinute,
+            @Value("${auth.rate-limit.user.burst:5}") int userBurst,
+            @Value("${auth.rate-limit.user.per-minute:10}") int userPerMinute,
+            @Value("${auth.rate-limit.max-entries:100000}") long maxEntries,
+            @Value("${auth.rate-limit.idle-timeout:600000}") long idleTimeoutMs,
+            ClusterMembership clusterMembership,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ipLimit = new Limit(ipBurst, ipPerMinute);
+        this.userLimit = new Limit(userBurst, userPerMinute);
+        this.clusterMembership = clusterMembership;
+        this.ipBuckets = buckets(maxEntries, idleTimeoutMs);
+        this.userBuckets = buckets(maxEntries, idleTimeoutMs);
+        this.ipRejected = Counter.builder("auth.rate-limit.rejected").tag("scope", "ip")
+                .description("Login/signup attempts rejected with 429")
+                .register(meterRegistry);
+        this.userRejected = Counter.builder("auth.rate-limit.rejected").tag("scope", "user")
+                .description("Login/signup attempts rejected with 429")
+                .register(meterRegistry);
+    }
+
+    public void checkLogin(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        check(ipBuckets, clientIp, ipLimit, ipRejected);
+        if (username != null) {
+            check(userBuckets, username.toLowerCase(Locale.ROOT), userLimit, userRejected);
+        }
+    }
+
+    // New accounts have no per-user history worth keeping, only the IP is limited
+    public void checkSignup(String clientIp) {
+        if (enabled) {
+            check(ipBuckets, clientIp, ipLimit, ipRejected);
+        }
+    }
+
+    private void check(Cache<String, AtomicLong> buckets, String key, Limit limit, Counter rejected) {
+        if (key == null) {
+            return;
+        }
+        long waitNanos = tryAcquire(buckets.get(key, NEW_BUCKET), limit, clusterMembership.nodeCount());
+        if (waitNanos > 0) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many attempts, try again later",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+        }
+    }
+
+    /**
+     * GCRA step. Returns 0 when a token was taken, otherwise how long until one is free.
+     * Package-private for tests.
+     */
+    static long tryAcquire(AtomicLong bucket, Limit limit, int nodeCount) {
+        int nodes = Math.max(1, nodeCount);
+        // This instance's share of the cluster-wide limit
+        long intervalNanos = TimeUnit.MINUTES.toNanos(1) * nodes / Math.max(1, limit.perMinute());
+        int burst = Math.max(1, (limit.burst() + nodes - 1) / nodes);
+        long tolerance = intervalNanos * (burst - 1);
+
+        while (true) {
+            long now = System.nanoTime();
+            long stored = bucket.get();
+            long fullAt = stored - now < 0 ? now : stored;
+            long over = fullAt - now - tolerance;
+            if (over > 0) {
+                return over;
+            }
+            if (bucket.compareAndSet(stored, fullAt + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private static Cache<String, AtomicLong> buckets(long maxEntries, long idleTimeoutMs) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(Duration.ofMillis(idleTimeoutMs))
+                .build();
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing/checking on a small dedicated pool with a bounded queue.
+ * A login storm can then use at most this pool's threads worth of CPU instead of
+ * every Tomcat worker, and excess attempts are rejected immediately with 503.
+ *
+ * Queued tasks run by Priority, FIFO within one: a burst of signups or
+ * background rehashes never delays someone waiting on the login form.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    public enum Priority {
+        // Someone is waiting on the login form (the dummy check for unknown names too, same timing)
+        LOGIN,
+        SIGNUP,
+        // Rehash after a successful login; the old hash keeps working if it is late or dropped
+        REHASH
+    }
+
+    // PriorityBlockingQueue is unbounded, so the queue capacity is enforced with permits instead
+    private final class PrioritizedTask<T> extends FutureTask<T> implements Comparable<PrioritizedTask<?>> {
+
+        private final Priority priority;
+        private final long sequence = sequencer.getAndIncrement();
+
+        PrioritizedTask(Priority priority, Supplier<T> task) {
+            super(task::get);
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+
+        // Runs once, whether the task completed or was cancelled while still queued
+        @Override
+        protected void done() {
+            slots.release();
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final AtomicLong sequencer = new AtomicLong();
+    private final long timeoutMs;
+    private final Timer hashTimer;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(@Value("${auth.password-hashing.threads:0}") int threads,
+            @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password-hashing.timeout:5000}") long timeoutMs,
+            MeterRegistry meterRegistry) {
+        // Default: half the cores, so authenticated API traffic always keeps the rest
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // Running plus queued
+        this.slots = new Semaphore(poolSize + queueCapacity);
+        this.timeoutMs = timeoutMs;
+
+        this.hashTimer = Timer.builder("auth.password.hash.duration")
+                .description("Time spent hashing or checking a password")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("auth.password.hash.wait")
+                .description("Time a password task waited in the queue")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.hash.rejected")
+                .description("Password tasks rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password tasks waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Priority priority, Supplier<T> task) {
+        if (!slots.tryAcquire()) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Too many login requests in progress, please retry shortly");
+        }
+        long submittedAt = System.nanoTime();
+        PrioritizedTask<T> future = new PrioritizedTask<>(priority, () -> timed(submittedAt, task));
+        if (!enqueue(future)) {
+            throw new ServiceUnavailableException("Password hashing is shutting down");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceUnavailableException("Password check timed out, please retry shortly");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password check interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Fire-and-forget for optional work such as REHASH: the caller never waits,
+     * and nothing is queued (false) when the queue is full. onResult runs on the
+     * hashing thread once the task is done; failures of either are only logged.
+     */
+    public <T> boolean submit(Priority priority, Supplier<T> task, Consumer<T> onResult) {
+        if (!slots.tryAcquire()) {
+            rejectedCounter.increment();
+            return false;
+        }
+        long submittedAt = System.nanoTime();
+        PrioritizedTask<Void> future = new PrioritizedTask<>(priority, () -> {
+            try {
+                onResult.accept(timed(submittedAt, task));
+            } catch (RuntimeException e) {
+                logger.warn("Background {} task failed: {}", priority, e.getMessage());
+            }
+            return null;
+        });
+        return enqueue(future);
+    }
+
+    // On the hashing thread: queue wait, then the hash itself
+    private <T> T timed(long submittedAt, Supplier<T> task) {
+        waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        return hashTimer.record(task);
+    }
+
+    // Caller already holds a slot; false (slot returned) only after shutdown
+    private boolean enqueue(PrioritizedTask<?> future) {
+        try {
+            executor.execute(future);
+            return true;
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
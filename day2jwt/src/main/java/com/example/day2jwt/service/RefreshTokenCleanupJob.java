@@ -0,0 +1,41 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Deletes expired refresh_tokens rows in small batches (uses the expires_at index).
+ */
+@Component
+@RequiredArgsConstructor
+public class RefreshTokenCleanupJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenCleanupJob.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${auth.refresh-token.cleanup-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${auth.refresh-token.cleanup-interval:3600000}")
+    public void deleteExpired() {
+        Instant now = Instant.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredBatch(now, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+
+        if (total > 0) {
+            logger.info("Deleted {} expired refresh tokens", total);
+        }
+    }
+}
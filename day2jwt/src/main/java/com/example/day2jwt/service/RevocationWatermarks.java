@@ -0,0 +1,126 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.entity.RevocationWatermarkEntity;
+import com.example.day2jwt.exception.BadRequestException;
+import com.example.day2jwt.model.RevocationWatermarkChangedEvent;
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.repository.RevocationWatermarkRepository;
+import com.example.day2jwt.utils.RoleEnum;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mass revocation without touching the users table: every token of a scope
+ * ("global", or a role) issued before the scope's watermark is rejected.
+ *
+ * The watermarks live in revocation_watermarks (one row per scope) and in
+ * memory as one effective value per role mask, so the check in
+ * JwtService.isTokenValid is an array read and a compare.
+ */
+@Component
+public class RevocationWatermarks {
+
+    public static final String GLOBAL = "global";
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationWatermarks.class);
+
+    private final RevocationWatermarkRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // scope -> not-before in epoch ms
+    private final Map<String, Long> notBeforeByScope = new ConcurrentHashMap<>();
+    // Index = role mask: max of the global and the mask's role watermarks; replaced on every change
+    private volatile long[] notBeforeByMask = new long[RoleEnum.ALL_MASK + 1];
+
+    public RevocationWatermarks(RevocationWatermarkRepository repository, ApplicationEventPublisher eventPublisher) {
+        this.repository = repository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Also called by TokenRevocationBroadcaster after a reconnect, for changes it missed
+    @PostConstruct
+    public void reload() {
+        for (RevocationWatermarkEntity watermark : repository.findAll()) {
+            advance(watermark.getScope(), watermark.getNotBefore().toEpochMilli());
+        }
+    }
+
+    // iat has second resolution, so tokens issued in the revocation's own second are rejected as well
+    public boolean accepts(VerifiedToken token) {
+        long notBeforeMs = notBeforeByMask[token.getRoles() & RoleEnum.ALL_MASK];
+        if (notBeforeMs == 0) {
+            return true;
+        }
+        Date issuedAt = token.getIssuedAt();
+        return issuedAt != null && issuedAt.getTime() >= notBeforeMs;
+    }
+
+    // Revokes every token of the scope issued until now; one row upsert, O(1) however many users exist
+    @Transactional
+    public Instant revoke(String scope) {
+        String key = normalizeScope(scope);
+        Instant now = Instant.now();
+        RevocationWatermarkEntity watermark = repository.findById(key)
+                .orElseGet(() -> RevocationWatermarkEntity.builder().scope(key).notBefore(now).build());
+        if (watermark.getNotBefore().isBefore(now)) {
+            watermark.setNotBefore(now);
+        }
+        repository.save(watermark);
+        long notBeforeMs = watermark.getNotBefore().toEpochMilli();
+        advance(key, notBeforeMs);
+        // Other nodes learn about it through TokenRevocationBroadcaster
+        eventPublisher.publishEvent(new RevocationWatermarkChangedEvent(key, notBeforeMs));
+        logger.warn("Revoked all '{}' tokens issued before {}", key, watermark.getNotBefore());
+        return watermark.getNotBefore();
+    }
+
+    // Never moves a watermark backwards, so replays and reordered notifications are harmless
+    public void advance(String scope, long notBeforeMs) {
+        Long previous = notBeforeByScope.get(scope);
+        if (previous != null && previous >= notBeforeMs) {
+            return;
+        }
+        notBeforeByScope.merge(scope, notBeforeMs, Math::max);
+        rebuild();
+    }
+
+    public Map<String, Instant> current() {
+        Map<String, Instant> current = new TreeMap<>();
+        notBeforeByScope.forEach((scope, ms) -> current.put(scope, Instant.ofEpochMilli(ms)));
+        return current;
+    }
+
+    private synchronized void rebuild() {
+        long global = notBeforeByScope.getOrDefault(GLOBAL, 0L);
+        long[] byMask = new long[RoleEnum.ALL_MASK + 1];
+        for (int mask = 0; mask < byMask.length; mask++) {
+            long notBefore = global;
+            for (RoleEnum role : RoleEnum.fromMask(mask)) {
+                notBefore = Math.max(notBefore, notBeforeByScope.getOrDefault(role.name(), 0L));
+            }
+            byMask[mask] = notBefore;
+        }
+        notBeforeByMask = byMask;
+    }
+
+    private static String normalizeScope(String scope) {
+        if (scope == null || scope.isBlank() || GLOBAL.equalsIgnoreCase(scope)) {
+            return GLOBAL;
+        }
+        try {
+            return RoleEnum.valueOf(scope.trim().toUpperCase()).name();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown revocation scope: " + scope);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.entity.SigningKeyEntity;
+import com.example.day2jwt.repository.SigningKeyRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Signing keys for JwtService.
+ *
+ * HS256 (default) uses the shared jwt.secret and puts no kid in the header, so
+ * tokens look exactly like before.
+ *
+ * RS256/ES256 keys are shared by every instance through the signing_keys table
+ * and rotate on a fixed schedule: the key of slot n (now / rotation-interval)
+ * signs during that slot, so all instances switch at the same boundary without
+ * talking to each other. The key of slot n + 1 is created and published in the
+ * JWKS a whole slot before it signs anything, which is far longer than
+ * resource servers may cache the JWKS (JWKS_MAX_AGE). A key keeps verifying
+ * for the grace period (default: the refresh token lifetime) after its slot.
+ */
+@Component
+public class SigningKeyRing extends SigningKeyResolverAdapter {
+
+    // Cache lifetime JwksController gives resource servers
+    public static final Duration JWKS_MAX_AGE = Duration.ofMinutes(5);
+    // How often an instance picks up keys created elsewhere and creates the next one
+    static final long REFRESH_INTERVAL_MS = 60_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyRing.class);
+
+    private static final long DEFAULT_ROTATION_INTERVAL_MS = 86_400_000;
+    private static final int GCM_NONCE_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+
+    public record SigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey,
+            long retireAtMs) {
+    }
+
+    // Swapped atomically; readers never see a half-rotated ring
+    private record State(SigningKey current, SigningKey next, long nextActiveFromMs, Map<String, SigningKey> byKid) {
+    }
+
+    private final SignatureAlgorithm algorithm;
+    private final long gracePeriodMs;
+    private final long rotationIntervalMs;
+    // Null outside Spring (tests, benchmarks): keys then live in this instance only
+    private final SigningKeyRepository repository;
+    private final LongSupplier clock;
+    private final Map<Long, SigningKeyEntity> localKeys = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private volatile String secret;
+    private volatile State state;
+
+    @Autowired
+    public SigningKeyRing(@Value("${jwt.secret}") String secret,
+            @Value("${jwt.signing.algorithm:HS256}") String algorithm,
+            @Value("${jwt.signing.grace-period:${jwt.refresh.expiration}}") long gracePeriodMs,
+            @Value("${jwt.signing.rotation-interval:86400000}") long rotationIntervalMs,
+            SigningKeyRepository repository) {
+        this(secret, algorithm, gracePeriodMs, rotationIntervalMs, repository, System::currentTimeMillis);
+    }
+
+    public SigningKeyRing(String secret, String algorithm, long gracePeriodMs) {
+        this(secret, algorithm, gracePeriodMs, DEFAULT_ROTATION_INTERVAL_MS, null, System::currentTimeMillis);
+    }
+
+    SigningKeyRing(String secret, String algorithm, long gracePeriodMs, long rotationIntervalMs,
+            SigningKeyRepository repository, LongSupplier clock) {
+        this.algorithm = SignatureAlgorithm.forName(algorithm);
+        if (this.algorithm != SignatureAlgorithm.HS256
+                && this.algorithm != SignatureAlgorithm.RS256
+                && this.algorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalArgumentException("Unsupported jwt.signing.algorithm: " + algorithm);
+        }
+        // The next key must be in every cached JWKS before it signs
+        long minInterval = JWKS_MAX_AGE.toMillis() + REFRESH_INTERVAL_MS;
+        if (!this.algorithm.isHmac() && rotationIntervalMs < minInterval) {
+            throw new IllegalArgumentException("jwt.signing.rotation-interval must be at least " + minInterval + " ms");
+        }
+        this.gracePeriodMs = gracePeriodMs;
+        this.rotationIntervalMs = rotationIntervalMs;
+        this.repository = repository;
+        this.clock = clock;
+        this.secret = secret;
+        if (isSymmetric()) {
+            state = hmacState(secret);
+        } else if (repository == null) {
+            refresh();
+        }
+    }
+
+    public SigningKey current() {
+        State current = state;
+        // Switch exactly at the slot boundary, even if refresh() hasn't run yet
+        if (current.next() != null && clock.getAsLong() >= current.nextActiveFromMs()) {
+            return current.next();
+        }
+        return current.current();
+    }
+
+    /**
+     * Switches HS256 to a new secret, only if it actually changed. Tokens signed
+     * with the old one stop verifying, which is the point of rotating a leaked
+     * secret. Asymmetric keys are encrypted with the secret at rest, so they keep
+     * the one they were started with.
+     */
+    public synchronized boolean reloadSecret(String newSecret) {
+        if (!isSymmetric() || newSecret.equals(secret)) {
+            return false;
+        }
+        // Built first: a too-short secret throws and leaves the current key in place
+        State reloaded = hmacState(newSecret);
+        secret = newSecret;
+        state = reloaded;
+        return true;
+    }
+
+    public boolean isSymmetric() {
+        return algorithm.isHmac();
+    }
+
+    /**
+     * Makes sure the keys of the current and the next slot exist (whichever
+     * instance gets there first creates them), drops keys past their grace
+     * period and reloads the ring. A failed reload keeps the previous ring.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelay = REFRESH_INTERVAL_MS, initialDelay = REFRESH_INTERVAL_MS)
+    public synchronized void refresh() {
+        if (isSymmetric()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long slot = now / rotationIntervalMs;
+        // Slots before this one ended more than the grace period ago
+        long oldestSlot = Math.floorDiv(now - gracePeriodMs, rotationIntervalMs);
+        try {
+            createIfAbsent(slot);
+            createIfAbsent(slot + 1);
+            state = buildState(slot, loadFrom(oldestSlot));
+        } catch (DataAccessException e) {
+            if (state == null) {
+                throw new IllegalStateException("Could not load JWT signing keys", e);
+            }
+            logger.warn("Could not refresh JWT signing keys, keeping the current ones: {}", e.getMessage());
+        }
+    }
+
+    // Called by the parser for every token; picks the verification key by kid
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        State current = state;
+        String kid = header.getKeyId();
+        if (kid == null) {
+            if (isSymmetric()) {
+                return current.current().verificationKey();
+            }
+            throw new SignatureException("Token has no kid");
+        }
+        SigningKey key = current.byKid().get(kid);
+        if (key == null || key.retireAtMs() <= clock.getAsLong()) {
+            throw new SignatureException("Unknown or retired signing key: " + kid);
+        }
+        return key.verificationKey();
+    }
+
+    // RFC 7517 key set with the public half of every key still accepted, and of the next one
+    public Map<String, Object> jwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        long now = clock.getAsLong();
+        for (SigningKey key : state.byKid().values()) {
+            if (key.retireAtMs() > now && !key.algorithm().isHmac()) {
+                keys.add(toJwk(key));
+            }
+        }
+        return Map.of("keys", keys);
+    }
+
+    private State hmacState(String hmacSecret) {
+        Key key = Keys.hmacShaKeyFor(hmacSecret.getBytes());
+        return new State(new SigningKey(null, algorithm, key, key, Long.MAX_VALUE), null, Long.MAX_VALUE, Map.of());
+    }
+
+    private State buildState(long slot, List<SigningKeyEntity> stored) {
+        State previous = state;
+        Map<String, SigningKey> byKid = new LinkedHashMap<>();
+        SigningKey current = null;
+        SigningKey next = null;
+        for (SigningKeyEntity entity : stored) {
+            // Keys don't change once written, only decrypt the new ones
+            SigningKey key = previous != null ? previous.byKid().get(entity.getKid()) : null;
+            if (key == null) {
+                key = decode(entity);
+            }
+            byKid.put(key.kid(), key);
+            if (entity.getSlot() <= slot) {
+                current = key;
+            } else if (entity.getSlot() == slot + 1) {
+                next = key;
+            }
+        }
+        if (current == null) {
+            throw new IllegalStateException("No JWT signing key for slot " + slot);
+        }
+        if (previous == null || !current.kid().equals(previous.current().kid())) {
+            logger.info("JWT signing key {} active, next {}; {} key(s) accepted", current.kid(),
+                    next != null ? next.kid() : "none", byKid.size());
+        }
+        return new State(current, next, (slot + 1) * rotationIntervalMs, Collections.unmodifiableMap(byKid));
+    }
+
+    private void createIfAbsent(long slot) {
+        if (repository == null) {
+            localKeys.computeIfAbsent(slot, this::generateKey);
+            return;
+        }
+        if (repository.existsById(slot)) {
+            return;
+        }
+        SigningKeyEntity key = generateKey(slot);
+        try {
+            repository.insert(key.getSlot(), key.getKid(), key.getAlgorithm(), key.getPublicKey(), key.getPrivateKey());
+            logger.info("Created JWT signing key {} for slot {}", key.getKid(), slot);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Signing key for slot {} was created by another instance", slot);
+        }
+    }
+
+    // Ordered by slot
+    private List<SigningKeyEntity> loadFrom(long oldestSlot) {
+        if (repository == null) {
+            localKeys.keySet().removeIf(slot -> slot < oldestSlot);
+            List<SigningKeyEntity> keys = new ArrayList<>(localKeys.values());
+            keys.sort(Comparator.comparing(SigningKeyEntity::getSlot));
+            return keys;
+        }
+        repository.deleteBySlotBefore(oldestSlot);
+        return repository.findBySlotGreaterThanEqualOrderBySlot(oldestSlot);
+    }
+
+    private SigningKeyEntity generateKey(long slot) {
+        try {
+            KeyPairGenerator generator;
+            if (algorithm == SignatureAlgorithm.RS256) {
+                generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+            } else {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            }
+            KeyPair pair = generator.generateKeyPair();
+            return new SigningKeyEntity(slot, UUID.randomUUID().toString(), algorithm.getValue(),
+                    pair.getPublic().getEncoded(), encrypt(pair.getPrivate().getEncoded()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not generate " + algorithm + " signing key", e);
+        }
+    }
+
+    private SigningKey decode(SigningKeyEntity entity) {
+        SignatureAlgorithm keyAlgorithm = SignatureAlgorithm.forName(entity.getAlgorithm());
+        try {
+            KeyFactory factory = KeyFactory.getInstance(keyAlgorithm == SignatureAlgorithm.RS256 ? "RSA" : "EC");
+            Key privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(decrypt(entity.getPrivateKey())));
+            Key publicKey = factory.generatePublic(new X509EncodedKeySpec(entity.getPublicKey()));
+            long retireAtMs = (entity.getSlot() + 1) * rotationIntervalMs + gracePeriodMs;
+            return new SigningKey(entity.getKid(), keyAlgorithm, privateKey, publicKey, retireAtMs);
+        } catch (GeneralSecurityException e) {
+            // Most likely jwt.secret differs from the instance that created the key
+            throw new IllegalStateException("Could not decode JWT signing key " + entity.getKid(), e);
+        }
+    }
+
+    // Private keys at rest: AES-GCM under a key derived from jwt.secret, which every instance shares
+    private byte[] encrypt(byte[] plain) throws GeneralSecurityException {
+        byte[] nonce = new byte[GCM_NONCE_BYTES];
+        random.nextBytes(nonce);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, storageKey(), new GCMParameterSpec(GCM_TAG_BITS, nonce));
+        byte[] encrypted = cipher.doFinal(plain);
+        byte[] stored = Arrays.copyOf(nonce, GCM_NONCE_BYTES + encrypted.length);
+        System.arraycopy(encrypted, 0, stored, GCM_NONCE_BYTES, encrypted.length);
+        return stored;
+    }
+
+    private byte[] decrypt(byte[] stored) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, storageKey(), new GCMParameterSpec(GCM_TAG_BITS, stored, 0, GCM_NONCE_BYTES));
+        return cipher.doFinal(stored, GCM_NONCE_BYTES, stored.length - GCM_NONCE_BYTES);
+    }
+
+    private SecretKeySpec storageKey() throws GeneralSecurityException {
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(("signing-keys:" + secret).getBytes(StandardCharsets.UTF_8));
+        return new SecretKeySpec(digest, "AES");
+    }
+
+    private static Map<String, Object> toJwk(SigningKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", key.kid());
+        jwk.put("use", "sig");
+        jwk.put("alg", key.algorithm().getValue());
+        if (key.verificationKey() instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(unsigned(rsa.getModulus(), 0)));
+            jwk.put("e", base64Url(unsigned(rsa.getPublicExponent(), 0)));
+        } else if (key.verificationKey() instanceof ECPublicKey ec) {
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("x", base64Url(unsigned(ec.getW().getAffineX(), 32)));
+            jwk.put("y", base64Url(unsigned(ec.getW().getAffineY(), 32)));
+        }
+        return jwk;
+    }
+
+    // Big-endian magnitude without the sign byte, left-padded to length when given
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (length > bytes.length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            return padded;
+        }
+        return bytes;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.day2jwt.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Hot-reloads the HS256 secret from jwt.secret-reload.file (e.g. a mounted
+ * Kubernetes/Vault secret), so rotating it needs no restart. The file is only
+ * read when its modification time changes, and the key only rebuilt when its
+ * contents differ from the secret in use.
+ */
+@Component
+@RequiredArgsConstructor
+public class SigningSecretWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningSecretWatcher.class);
+
+    private final JwtService jwtService;
+
+    // Empty: jwt.secret is fixed for the lifetime of the process
+    @Value("${jwt.secret-reload.file:}")
+    private String secretFile;
+
+    private FileTime lastModified;
+
+    @Scheduled(fixedDelayString = "${jwt.secret-reload.interval:10000}")
+    public void checkForNewSecret() {
+        if (secretFile == null || secretFile.isBlank()) {
+            return;
+        }
+        Path path = Path.of(secretFile);
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            if (modified.equals(lastModified)) {
+                return;
+            }
+            String secret = Files.readString(path, StandardCharsets.UTF_8).strip();
+            if (!secret.isEmpty() && jwtService.reloadSigningKey(secret)) {
+                logger.info("Reloaded JWT signing secret from {}", path);
+            }
+            lastModified = modified;
+        } catch (IOException | RuntimeException e) {
+            // Keep signing with the current secret; retried on the next check
+            logger.warn("Could not reload JWT signing secret from {}: {}", path, e.getMessage());
+        }
+    }
+}
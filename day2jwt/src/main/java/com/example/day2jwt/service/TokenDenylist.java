@@ -0,0 +1,226 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.model.TokenVersionChangedEvent;
+import com.example.day2jwt.model.VerifiedToken;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Revocations for stateless mode (auth.stateless.enabled), where JwtAuthFilter
+ * never asks the database for a user's tokenVersion.
+ *
+ * Two kinds of entries: single tokens by jti, and users whose tokens below a
+ * tokenVersion are revoked (logout, role change). Every entry carries the time
+ * after which the tokens it denies have expired anyway; an expiry-ordered index
+ * drops it at that point, so memory is bounded by what was revoked within one
+ * access-token lifetime. The entries are written to a small snapshot file on
+ * shutdown (and periodically) and read back on startup.
+ *
+ * Requires auth.cache.revocation.enabled=true: TokenRevocationBroadcaster
+ * brings in other nodes' logouts and, on startup, replays the ones the
+ * snapshot is missing. Without it a node only knows its own revocations.
+ */
+@Component
+public class TokenDenylist {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylist.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x4A444C31; // "JDL1"
+
+    private record UserRevocation(int minTokenVersion, long expiresAtMs) {
+    }
+
+    // Expiry index; kind 't' = jti, 'u' = username
+    private record Expiry(long expiresAtMs, char kind, String key) {
+    }
+
+    private static final Comparator<Expiry> EXPIRY_ORDER = Comparator.comparingLong(Expiry::expiresAtMs)
+            .thenComparing(Expiry::kind)
+            .thenComparing(Expiry::key);
+
+    private final boolean enabled;
+    private final Path snapshotFile;
+    private final long accessTokenTtlMs;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+    private final NavigableSet<Expiry> expiries = new ConcurrentSkipListSet<>(EXPIRY_ORDER);
+
+    public TokenDenylist(@Value("${auth.stateless.enabled:false}") boolean enabled,
+            @Value("${auth.stateless.snapshot-file:}") String snapshotFile,
+            @Value("${jwt.access.expiration}") long accessTokenTtlMs,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        Gauge.builder("auth.denylist.size", expiries, NavigableSet::size)
+                .description("Revoked tokens and users held until their tokens expire")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getAccessTokenTtlMs() {
+        return accessTokenTtlMs;
+    }
+
+    // Hot path: one or two hash lookups, no allocation
+    public boolean isRevoked(VerifiedToken token) {
+        long now = System.currentTimeMillis();
+        if (token.getId() != null) {
+            Long expiresAt = revokedTokens.get(token.getId());
+            if (expiresAt != null && expiresAt > now) {
+                return true;
+            }
+        }
+        UserRevocation user = revokedUsers.get(token.getSubject());
+        return user != null && user.expiresAtMs() > now && token.getTokenVersion() < user.minTokenVersion();
+    }
+
+    public void revoke(VerifiedToken token) {
+        if (!enabled || token.getId() == null || token.getExpiration() == null) {
+            return;
+        }
+        long expiresAt = token.getExpiration().getTime();
+        revokedTokens.merge(token.getId(), expiresAt, Math::max);
+        expiries.add(new Expiry(expiresAt, 't', token.getId()));
+    }
+
+    // Every token of the user below tokenVersion; all of them are expired one access-token lifetime from now
+    public void revokeUser(String username, int tokenVersion) {
+        if (enabled) {
+            addUser(username, tokenVersion, System.currentTimeMillis() + accessTokenTtlMs);
+        }
+    }
+
+    // Local logouts and role changes; other nodes get the same through TokenRevocationBroadcaster
+    @EventListener
+    public void onTokenVersionChanged(TokenVersionChangedEvent event) {
+        revokeUser(event.getUsername(), event.getTokenVersion());
+    }
+
+    private void addUser(String username, int minTokenVersion, long expiresAtMs) {
+        UserRevocation merged = revokedUsers.merge(username, new UserRevocation(minTokenVersion, expiresAtMs),
+                (a, b) -> new UserRevocation(Math.max(a.minTokenVersion(), b.minTokenVersion()),
+                        Math.max(a.expiresAtMs(), b.expiresAtMs())));
+        expiries.add(new Expiry(merged.expiresAtMs(), 'u', username));
+    }
+
+    public int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    // Lookups already ignore expired entries; this frees them
+    @Scheduled(fixedDelayString = "${auth.stateless.purge-interval:1000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Expiry head;
+        while ((head = expiries.pollFirst()) != null) {
+            if (head.expiresAtMs() > now) {
+                expiries.add(head);
+                return;
+            }
+            // A later revocation may have extended the entry; it has its own index entry then
+            if (head.kind() == 't') {
+                revokedTokens.remove(head.key(), head.expiresAtMs());
+            } else {
+                revokedUsers.computeIfPresent(head.key(),
+                        (key, user) -> user.expiresAtMs() <= now ? null : user);
+            }
+        }
+    }
+
+    @PostConstruct
+    void loadSnapshot() {
+        if (!enabled || snapshotFile == null || !Files.exists(snapshotFile)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                logger.warn("Ignoring denylist snapshot {}: unknown format", snapshotFile);
+                return;
+            }
+            int tokens = in.readInt();
+            for (int i = 0; i < tokens; i++) {
+                String jti = in.readUTF();
+                long expiresAt = in.readLong();
+                if (expiresAt > now) {
+                    revokedTokens.merge(jti, expiresAt, Math::max);
+                    expiries.add(new Expiry(expiresAt, 't', jti));
+                }
+            }
+            int users = in.readInt();
+            for (int i = 0; i < users; i++) {
+                String username = in.readUTF();
+                int minTokenVersion = in.readInt();
+                long expiresAt = in.readLong();
+                if (expiresAt > now) {
+                    addUser(username, minTokenVersion, expiresAt);
+                }
+            }
+            logger.info("Loaded {} denylist entries from {}", size(), snapshotFile);
+        } catch (IOException e) {
+            // Not fatal: tokens revoked before the restart stay valid until they expire
+            logger.warn("Could not read denylist snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${auth.stateless.snapshot-interval:60000}")
+    public void saveSnapshot() {
+        if (!enabled || snapshotFile == null) {
+            return;
+        }
+        purgeExpired();
+        Map<String, Long> tokens = Map.copyOf(revokedTokens);
+        Map<String, UserRevocation> users = Map.copyOf(revokedUsers);
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // Written next to the target and renamed, so a crash never leaves half a snapshot
+            Path temp = Files.createTempFile(parent, "denylist", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(tokens.size());
+                for (Map.Entry<String, Long> entry : tokens.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+                out.writeInt(users.size());
+                for (Map.Entry<String, UserRevocation> entry : users.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().minTokenVersion());
+                    out.writeLong(entry.getValue().expiresAtMs());
+                }
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not write denylist snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+}
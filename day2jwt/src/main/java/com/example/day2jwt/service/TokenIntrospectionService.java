@@ -0,0 +1,160 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.dto.TokenIntrospectionDTO;
+import com.example.day2jwt.exception.BadRequestException;
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch token introspection for internal services. Signatures are checked in
+ * parallel on a bounded pool, then every tokenVersion not already cached is
+ * fetched with a single IN query, so a batch costs at most one DB round trip.
+ */
+@Service
+public class TokenIntrospectionService {
+
+    private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final TokenVersionCache tokenVersionCache;
+    private final TokenDenylist tokenDenylist;
+    private final ThreadPoolExecutor executor;
+    private final int maxBatchSize;
+
+    public TokenIntrospectionService(JwtService jwtService,
+            UserRepository userRepository,
+            TokenVersionCache tokenVersionCache,
+            TokenDenylist tokenDenylist,
+            @Value("${auth.introspect.threads:0}") int threads,
+            @Value("${auth.introspect.max-batch-size:100}") int maxBatchSize) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.tokenVersionCache = tokenVersionCache;
+        this.tokenDenylist = tokenDenylist;
+        this.maxBatchSize = maxBatchSize;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        // When the pool is saturated the request thread verifies its own chunk instead of queueing unboundedly
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "token-introspect-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public List<TokenIntrospectionDTO> introspect(List<String> tokens) {
+        if (tokens.size() > maxBatchSize) {
+            throw new BadRequestException("At most " + maxBatchSize + " tokens per introspection request");
+        }
+
+        VerifiedToken[] verified = verifyAll(tokens);
+        Map<String, Integer> currentVersions = currentTokenVersions(verified);
+
+        List<TokenIntrospectionDTO> results = new ArrayList<>(tokens.size());
+        for (VerifiedToken token : verified) {
+            // Only access tokens are introspectable; refresh tokens are validated against refresh_tokens.
+            // The denylist holds single-token logouts, which the tokenVersion check can't see
+            if (token == null || !token.isAccessToken()
+                    || !jwtService.isTokenValid(token, currentVersions.get(token.getSubject()))
+                    || tokenDenylist.isRevoked(token)) {
+                results.add(TokenIntrospectionDTO.inactive());
+                continue;
+            }
+            results.add(new TokenIntrospectionDTO(true,
+                    token.getSubject(),
+                    token.getType(),
+                    token.getTokenVersion(),
+                    token.getIssuedAt() != null ? token.getIssuedAt().getTime() / 1000 : null,
+                    token.getExpiration() != null ? token.getExpiration().getTime() / 1000 : null));
+        }
+        return results;
+    }
+
+    // One chunk per pool thread; small batches are verified inline
+    private VerifiedToken[] verifyAll(List<String> tokens) {
+        VerifiedToken[] verified = new VerifiedToken[tokens.size()];
+        int chunks = Math.min(executor.getCorePoolSize(), tokens.size());
+        if (chunks <= 1) {
+            verifyRange(tokens, verified, 0, tokens.size());
+            return verified;
+        }
+
+        int chunkSize = (tokens.size() + chunks - 1) / chunks;
+        List<Future<?>> futures = new ArrayList<>(chunks);
+        for (int start = 0; start < tokens.size(); start += chunkSize) {
+            int from = start;
+            int to = Math.min(start + chunkSize, tokens.size());
+            futures.add(executor.submit((Callable<Void>) () -> {
+                verifyRange(tokens, verified, from, to);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Introspection interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Introspection failed", e.getCause());
+            }
+        }
+        return verified;
+    }
+
+    private void verifyRange(List<String> tokens, VerifiedToken[] verified, int from, int to) {
+        for (int i = from; i < to; i++) {
+            String token = tokens.get(i);
+            verified[i] = token != null && !token.isEmpty() ? jwtService.verify(token) : null;
+        }
+    }
+
+    private Map<String, Integer> currentTokenVersions(VerifiedToken[] verified) {
+        Map<String, Integer> versions = new HashMap<>();
+        Set<String> misses = new HashSet<>();
+        for (VerifiedToken token : verified) {
+            if (token == null || token.getSubject() == null || versions.containsKey(token.getSubject())) {
+                continue;
+            }
+            Integer cached = tokenVersionCache.getIfPresent(token.getSubject());
+            if (cached != null) {
+                versions.put(token.getSubject(), cached);
+            } else {
+                misses.add(token.getSubject());
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            for (UserRepository.UsernameTokenVersion row : userRepository.findAllByUsernameIn(misses)) {
+                versions.put(row.getUsername(), row.getTokenVersion());
+                tokenVersionCache.putIfAbsent(row.getUsername(), row.getTokenVersion());
+            }
+        }
+        return versions;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.model.RevocationWatermarkChangedEvent;
+import com.example.day2jwt.model.TokenVersionChangedEvent;
+import com.example.day2jwt.model.UserRegisteredEvent;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps TokenVersionCache consistent across nodes using Postgres LISTEN/NOTIFY.
+ *
+ * Logout publishes a TokenVersionChangedEvent; it is sent with pg_notify inside
+ * the logout transaction, so Postgres delivers it only after commit. Every node
+ * keeps one dedicated (non-pooled) connection that LISTENs on the channel and
+ * advances its local cache entry when a notification arrives.
+ *
+ * New usernames travel the same way on a second channel, so every node's
+ * UsernameRegistry knows about users that signed up elsewhere, and so do
+ * global/role revocation watermarks on a third.
+ *
+ * Any failure in the listen loop (connection, replay, a bad handler) is logged
+ * and followed by a reconnect with backoff; the loop's state is reported as
+ * the tokenRevocationBroadcaster health contributor.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.cache.revocation.enabled", havingValue = "true")
+public class TokenRevocationBroadcaster implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationBroadcaster.class);
+
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    // NOTIFY payloads must stay under 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7_900;
+    // Allowance for clock skew between nodes when replaying missed revocations
+    private static final long REPLAY_MARGIN_MS = 5_000;
+    // A live loop polls every POLL_TIMEOUT_MS; much longer without a poll means it is stuck or gone
+    private static final long STALE_POLL_MS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final TokenVersionCache tokenVersionCache;
+    private final UsernameRegistry usernameRegistry;
+    private final TokenDenylist tokenDenylist;
+    private final RevocationWatermarks revocationWatermarks;
+    private final String channel;
+    private final String userChannel;
+    private final String watermarkChannel;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    // Written by the listener thread, read by health()
+    private volatile boolean connected;
+    private volatile long lastPollMs;
+    private volatile long failures;
+    private volatile String lastError;
+
+    public TokenRevocationBroadcaster(JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            TokenVersionCache tokenVersionCache,
+            UsernameRegistry usernameRegistry,
+            TokenDenylist tokenDenylist,
+            RevocationWatermarks revocationWatermarks,
+            @Value("${auth.cache.revocation.channel:token_version_changed}") String channel,
+            @Value("${auth.cache.revocation.user-channel:user_registered}") String userChannel,
+            @Value("${auth.cache.revocation.watermark-channel:revocation_watermark}") String watermarkChannel) {
+        // LISTEN takes an identifier, not a bind parameter
+        for (String name : new String[] { channel, userChannel, watermarkChannel }) {
+            if (!name.matches("[a-z_][a-z0-9_]*")) {
+                throw new IllegalArgumentException("Invalid revocation channel name: " + name);
+            }
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.tokenVersionCache = tokenVersionCache;
+        this.usernameRegistry = usernameRegistry;
+        this.tokenDenylist = tokenDenylist;
+        this.revocationWatermarks = revocationWatermarks;
+        this.channel = channel;
+        this.userChannel = userChannel;
+        this.watermarkChannel = watermarkChannel;
+    }
+
+    // Runs in the publisher's transaction; NOTIFY is only delivered on commit
+    @EventListener
+    public void onTokenVersionChanged(TokenVersionChangedEvent event) {
+        jdbcTemplate.query("select pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null,
+                channel, toPayload(event.getUsername(), event.getTokenVersion()));
+    }
+
+    @EventListener
+    public void onUserRegistered(UserRegisteredEvent event) {
+        for (String payload : toUserPayloads(event.getUsernames())) {
+            jdbcTemplate.query("select pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null,
+                    userChannel, payload);
+        }
+    }
+
+    @EventListener
+    public void onRevocationWatermarkChanged(RevocationWatermarkChangedEvent event) {
+        jdbcTemplate.query("select pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null,
+                watermarkChannel, event.getNotBeforeMs() + ":" + event.getScope());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "token-revocation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health;
+        long sinceLastPollMs = System.currentTimeMillis() - lastPollMs;
+        if (!running) {
+            health = Health.unknown();
+        } else if (!connected || listenerThread == null || !listenerThread.isAlive()) {
+            health = Health.down();
+        } else if (sinceLastPollMs > STALE_POLL_MS) {
+            health = Health.down().withDetail("msSinceLastPoll", sinceLastPollMs);
+        } else {
+            health = Health.up();
+        }
+        health.withDetail("failures", failures);
+        if (lastError != null) {
+            health.withDetail("lastError", lastError);
+        }
+        return health.build();
+    }
+
+    // Dedicated connection: LISTEN state must not leak into the pool
+    Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword());
+    }
+
+    private void listenLoop() {
+        long backoffMs = 1_000;
+        boolean reconnect = false;
+        lastPollMs = System.currentTimeMillis();
+        while (running) {
+            try (Connection connection = openConnection()) {
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                    statement.execute("LISTEN " + userChannel);
+                    statement.execute("LISTEN " + watermarkChannel);
+                }
+                // Notifications sent while we were disconnected are lost, start clean
+                tokenVersionCache.evictAll();
+                if (reconnect) {
+                    usernameRegistry.rebuild();
+                    replayRevocations(lastPollMs - REPLAY_MARGIN_MS);
+                    revocationWatermarks.reload();
+                } else {
+                    // Snapshot missing (fresh instance) or up to one interval stale: any logout within
+                    // the last access-token lifetime may be unknown here
+                    replayRevocations(System.currentTimeMillis() - tokenDenylist.getAccessTokenTtlMs()
+                            - REPLAY_MARGIN_MS);
+                }
+                reconnect = true;
+                connected = true;
+                backoffMs = 1_000;
+                logger.info("Listening for token revocations on channel '{}'", channel);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    lastPollMs = System.currentTimeMillis();
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Runtime failures too (replay, rebuild): a dead thread would silently stop propagation
+                connected = false;
+                if (!running) {
+                    return;
+                }
+                failures++;
+                lastError = e.toString();
+                // Signups broadcast from now until the reconnect's rebuild would be missed
+                usernameRegistry.invalidate();
+                logger.warn("Revocation listener failed, reconnecting in {} ms", backoffMs, e);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    // One bad payload or handler must not cost the connection (and the evicted cache a reconnect means)
+    private void dispatch(PGNotification notification) {
+        try {
+            if (userChannel.equals(notification.getName())) {
+                handleUserNotification(notification.getParameter());
+            } else if (watermarkChannel.equals(notification.getName())) {
+                handleWatermarkNotification(notification.getParameter());
+            } else {
+                handleNotification(notification.getParameter());
+            }
+        } catch (RuntimeException e) {
+            failures++;
+            lastError = e.toString();
+            logger.error("Failed to apply notification on channel '{}'", notification.getName(), e);
+        }
+    }
+
+    // The denylist has no database to fall back on: re-read every user changed while we were deaf
+    private void replayRevocations(long sinceMs) {
+        if (!tokenDenylist.isEnabled()) {
+            return;
+        }
+        jdbcTemplate.query("select username, token_version from users where updated_at >= ?",
+                (RowCallbackHandler) rs -> tokenDenylist.revokeUser(rs.getString(1), rs.getInt(2)),
+                new Timestamp(sinceMs));
+    }
+
+    // Payload is "<tokenVersion>:<username>"; the version goes first because usernames may contain ':'
+    static String toPayload(String username, int tokenVersion) {
+        return tokenVersion + ":" + username;
+    }
+
+    // Usernames joined by '\n', packed into as few notifications as the size limit allows
+    static List<String> toUserPayloads(List<String> usernames) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentBytes = 0;
+        for (String username : usernames) {
+            int bytes = username.getBytes(StandardCharsets.UTF_8).length;
+            if (current.length() > 0 && currentBytes + 1 + bytes > MAX_PAYLOAD_BYTES) {
+                payloads.add(current.toString());
+                current.setLength(0);
+                currentBytes = 0;
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+                currentBytes++;
+            }
+            current.append(username);
+            currentBytes += bytes;
+        }
+        if (current.length() > 0) {
+            payloads.add(current.toString());
+        }
+        return payloads;
+    }
+
+    void handleUserNotification(String payload) {
+        if (payload != null) {
+            for (String username : payload.split("\n")) {
+                usernameRegistry.add(username);
+            }
+        }
+    }
+
+    // Payload is "<notBeforeMs>:<scope>"
+    void handleWatermarkNotification(String payload) {
+        int separator = payload == null ? -1 : payload.indexOf(':');
+        if (separator <= 0) {
+            logger.warn("Ignoring malformed watermark payload: {}", payload);
+            return;
+        }
+        try {
+            long notBeforeMs = Long.parseLong(payload.substring(0, separator));
+            revocationWatermarks.advance(payload.substring(separator + 1), notBeforeMs);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed watermark payload: {}", payload);
+        }
+    }
+
+    void handleNotification(String payload) {
+        int separator = payload == null ? -1 : payload.indexOf(':');
+        if (separator <= 0) {
+            logger.warn("Ignoring malformed revocation payload: {}", payload);
+            return;
+        }
+        try {
+            int tokenVersion = Integer.parseInt(payload.substring(0, separator));
+            String username = payload.substring(separator + 1);
+            tokenVersionCache.advance(username, tokenVersion);
+            tokenDenylist.revokeUser(username, tokenVersion);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed revocation payload: {}", payload);
+        }
+    }
+}
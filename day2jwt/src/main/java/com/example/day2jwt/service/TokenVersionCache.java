@@ -0,0 +1,77 @@
+package com.example.day2jwt.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * username -> current tokenVersion, so JwtAuthFilter doesn't query the users
+ * table on every request. Writers (logout, login) update it write-through;
+ * the TTL only bounds staleness for changes made outside this service.
+ */
+@Component
+public class TokenVersionCache {
+
+    private final Cache<String, Integer> cache;
+
+    public TokenVersionCache(@Value("${auth.cache.token-version.max-size:10000}") long maxSize,
+            @Value("${auth.cache.token-version.ttl:60000}") long ttlMs,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        // Exposes cache.gets{result=hit|miss}, cache.evictions, cache.size on /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "tokenVersion");
+    }
+
+    // Returns null (and caches nothing) when the loader finds no user.
+    // The loader runs outside the cache's compute lock: on virtual threads a DB call
+    // inside ConcurrentHashMap.compute would pin the carrier thread. putIfAbsent keeps
+    // a concurrent write-through (logout) from being overwritten by an older read.
+    public Integer get(String username, Function<String, Integer> loader) {
+        Integer cached = cache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+        Integer loaded = loader.apply(username);
+        if (loaded == null) {
+            return null;
+        }
+        Integer existing = cache.asMap().putIfAbsent(username, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    public Integer getIfPresent(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    // Fill from a bulk read without overwriting a concurrent write-through
+    public void putIfAbsent(String username, int tokenVersion) {
+        cache.asMap().putIfAbsent(username, tokenVersion);
+    }
+
+    public void put(String username, int tokenVersion) {
+        cache.put(username, tokenVersion);
+    }
+
+    // Apply a version seen elsewhere (another node); never moves a cached version backwards
+    public void advance(String username, int tokenVersion) {
+        cache.asMap().merge(username, tokenVersion, Math::max);
+    }
+
+    public void evict(String username) {
+        cache.invalidate(username);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+}
@@ -1,81 +1,326 @@
 package com.example.day2jwt.service;
 
 import com.example.day2jwt.dto.UserRequestDTO;
+import com.example.day2jwt.dto.UserResponseDTO;
+import com.example.day2jwt.entity.RefreshTokenEntity;
 import com.example.day2jwt.entity.UserEntity;
+import com.example.day2jwt.exception.BadRequestException;
+import com.example.day2jwt.exception.ResourceNotFoundException;
+import com.example.day2jwt.exception.UnauthorizedException;
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.model.TokenVersionChangedEvent;
+import com.example.day2jwt.model.UserRegisteredEvent;
+import com.example.day2jwt.repository.RefreshTokenRepository;
 import com.example.day2jwt.repository.UserRepository;
+import com.example.day2jwt.utils.RoleEnum;
+import com.example.day2jwt.utils.TokenHashing;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionCache tokenVersionCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final JwtService jwtService;
+    private final AuthMetrics authMetrics;
+    private final UsernameRegistry usernameRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile String dummyPasswordHash;
+
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
+    // Rotation: every refresh returns a new refresh token and consumes the old one
+    @Value("${jwt.refresh.rotate:false}")
+    private boolean rotateRefreshTokens;
+
+    // A consumed token seen again within this window is a concurrent refresh, not a replay
+    @Value("${jwt.refresh.reuse-grace-ms:2000}")
+    private long reuseGraceMs;
+
+    // Existing users granted ADMIN at startup, comma-separated; how the first admin gets made
+    @Value("${auth.admin-usernames:}")
+    private List<String> adminUsernames = List.of();
+
     // Signup: save user in DB
     public UserEntity signup(UserRequestDTO request) {
         String username = request.getUsername();
         String password = request.getPassword();
         logger.info("Signup attempt for username: {}", username);
 
-        if (userRepository.findByUsername(username).isPresent()) {
+        // Names the registry rules out skip the existence query; the unique index still guards races
+        if (usernameRegistry.mightExist(username) && userRepository.findByUsername(username).isPresent()) {
             logger.warn("Username '{}' already exists", username);
             throw new RuntimeException("Username already exists");
         }
 
         UserEntity user = UserEntity.builder()
                 .username(username)
-                .password(passwordEncoder.encode(password))
+                .password(passwordHashingExecutor.execute(PasswordHashingExecutor.Priority.SIGNUP,
+                        () -> passwordEncoder.encode(password)))
                 .tokenVersion(0)
+                .roles(RoleEnum.USER.bit())
                 .build();
 
         UserEntity savedUser = Objects.requireNonNull(userRepository.save(user), "Saved user is null");
         logger.info("User '{}' registered successfully with ID {}", username, savedUser.getId());
+        // Adds the name to the username filter here and, via the broadcaster, on other nodes
+        eventPublisher.publishEvent(new UserRegisteredEvent(List.of(username)));
 
         return savedUser;
     }
 
     // Fetch user by username
     public UserEntity getByUsername(String username) {
+        if (usernameRegistry.isKnownMissing(username)) {
+            throw new RuntimeException("User not found");
+        }
         return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> {
+                    usernameRegistry.recordMissing(username);
+                    return new RuntimeException("User not found");
+                });
+    }
+
+    // Current tokenVersion for the auth filter; served from cache, null if the user doesn't exist
+    public Integer getTokenVersion(String username) {
+        return tokenVersionCache.get(username, this::loadTokenVersion);
+    }
+
+    // Like login, only a recent database "no" skips the query: a stale filter must not reject a real user's token
+    private Integer loadTokenVersion(String username) {
+        if (usernameRegistry.isKnownMissing(username)) {
+            return null;
+        }
+        Integer tokenVersion = authMetrics.timeTokenVersionLookup(
+                () -> userRepository.findTokenVersionByUsername(username).orElse(null));
+        if (tokenVersion == null) {
+            usernameRegistry.recordMissing(username);
+        }
+        return tokenVersion;
     }
 
     // Validate raw password with encoded password
     public boolean validatePassword(UserEntity user, String rawPassword) {
-        boolean matches = passwordEncoder.matches(rawPassword, user.getPassword());
+        // BCrypt runs on its own bounded pool, not on the request thread
+        boolean matches = passwordHashingExecutor.execute(PasswordHashingExecutor.Priority.LOGIN,
+                () -> passwordEncoder.matches(rawPassword, user.getPassword()));
         logger.info("Password validation for user '{}': {}", user.getUsername(), matches ? "SUCCESS" : "FAILURE");
+        if (matches && passwordEncoder.upgradeEncoding(user.getPassword())) {
+            upgradePasswordHash(user, rawPassword);
+        }
         return matches;
     }
 
+    // Rehash with the current algorithm/cost; we only have the raw password right after a successful login.
+    // Optional work: queued behind logins and signups without the login waiting for it, and dropped when
+    // the hashing queue is full (the old hash still works, we retry on the next login).
+    private void upgradePasswordHash(UserEntity user, String rawPassword) {
+        boolean queued = passwordHashingExecutor.submit(PasswordHashingExecutor.Priority.REHASH,
+                () -> passwordEncoder.encode(rawPassword),
+                newHash -> {
+                    // Not set on the entity: a managed, dirty entity would be flushed again as a full-row update
+                    userRepository.updatePassword(user.getId(), newHash);
+                    logger.info("Upgraded password hash for user '{}'", user.getUsername());
+                });
+        if (!queued) {
+            logger.debug("Password hash upgrade for user '{}' skipped, hashing queue full", user.getUsername());
+        }
+    }
+
+    // Login: one SELECT for the user, password check, one INSERT for the session's refresh token.
+    // A known sessionId (device) replaces that device's previous session; null starts a new one.
+    // Not @Transactional: a login queued for a hashing thread must not hold a pooled connection,
+    // so only the session writes (and, separately, a hash upgrade) run in a transaction.
+    public UserResponseDTO login(String username, String rawPassword, String sessionId) {
+        if (sessionId != null && sessionId.length() > 64) {
+            throw new BadRequestException("X-Device-Id must be at most 64 characters");
+        }
+        // Only a recent "no" from the database skips the query; a Bloom filter "no" may just be stale
+        UserEntity user = usernameRegistry.isKnownMissing(username)
+                ? null
+                : userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            usernameRegistry.recordMissing(username);
+            // Same BCrypt cost and answer as a wrong password, so unknown names can't be told apart
+            passwordHashingExecutor.execute(PasswordHashingExecutor.Priority.LOGIN,
+                    () -> passwordEncoder.matches(rawPassword, dummyPasswordHash()));
+            throw new UnauthorizedException("Invalid credentials");
+        }
+
+        if (!validatePassword(user, rawPassword)) {
+            throw new UnauthorizedException("Invalid credentials");
+        }
+
+        String accessToken = jwtService.generateToken(username, user.getTokenVersion(), user.getRoles());
+        String refreshToken = jwtService.generateRefreshToken(username, user.getRoles());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (sessionId != null) {
+                refreshTokenRepository.deleteSession(user.getId(), sessionId);
+            }
+            storeRefreshToken(user.getId(), sessionId != null ? sessionId : UUID.randomUUID().toString(),
+                    UUID.randomUUID().toString(), refreshToken);
+        });
+        tokenVersionCache.put(username, user.getTokenVersion());
+
+        return new UserResponseDTO(username, accessToken, refreshToken);
+    }
+
+    // Hash of a random password with the current encoder; only ever compared against
+    private String dummyPasswordHash() {
+        String hash = dummyPasswordHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode(UUID.randomUUID().toString());
+            dummyPasswordHash = hash;
+        }
+        return hash;
+    }
+
     @Transactional
     public void logout(String username) {
         UserEntity user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setTokenVersion(user.getTokenVersion() + 1);
-        userRepository.save(user);
+        revokeAllTokens(user);
     }
 
+    // Outstanding tokens carry the old roles, so they are revoked like on logout
     @Transactional
-    public void saveRefreshToken(String username, String refreshToken) {
-        UserEntity user = getByUsername(username);
-        user.setRefreshToken(refreshToken);
+    public Set<RoleEnum> updateRoles(String username, Set<RoleEnum> roles) {
+        UserEntity user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        user.setRoles(RoleEnum.mask(roles));
+        revokeAllTokens(user);
+        logger.info("Roles of user '{}' set to {}", username, roles);
+        return RoleEnum.fromMask(user.getRoles());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void grantConfiguredAdmins() {
+        for (String username : adminUsernames) {
+            userRepository.findByUsername(username.trim())
+                    .filter(user -> (user.getRoles() & RoleEnum.ADMIN.bit()) == 0)
+                    .ifPresent(user -> {
+                        // Not revoked: existing tokens just lack the new role until the next login
+                        user.setRoles(user.getRoles() | RoleEnum.ADMIN.bit());
+                        userRepository.save(user);
+                        logger.info("Granted ADMIN to configured user '{}'", user.getUsername());
+                    });
+        }
+    }
+
+    private void revokeAllTokens(UserEntity user) {
+        String username = user.getUsername();
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        // Ends every session on every device
+        refreshTokenRepository.deleteAllForUser(user.getId());
+        // Write-through so the revocation applies to the very next request
+        tokenVersionCache.put(username, user.getTokenVersion());
+        // Other nodes learn about it through TokenRevocationBroadcaster
+        eventPublisher.publishEvent(new TokenVersionChangedEvent(username, user.getTokenVersion()));
     }
 
+    /**
+     * Issues a new access token for a valid refresh token.
+     * With rotation on, the presented token is consumed with a compare-and-swap
+     * update and a new one from the same family is returned. Presenting a consumed
+     * token after the grace window is treated as theft: the whole family is revoked.
+     */
+    @Transactional(dontRollbackOn = UnauthorizedException.class)
+    public UserResponseDTO refresh(String refreshToken) {
+        VerifiedToken verified = refreshToken != null ? jwtService.verify(refreshToken) : null;
+        if (verified == null || !"refresh".equals(verified.getType())) {
+            if (verified != null) {
+                authMetrics.recordFailure(AuthMetrics.FailureReason.WRONG_TYPE);
+            }
+            throw new UnauthorizedException("Invalid or expired refresh token");
+        }
+        // Sessions started before a global or role revocation end here too
+        if (!jwtService.isTokenValid(verified)) {
+            authMetrics.recordFailure(AuthMetrics.FailureReason.REVOKED);
+            throw new UnauthorizedException("Invalid or expired refresh token");
+        }
+        String username = verified.getSubject();
+        Integer tokenVersion = getTokenVersion(username);
+        if (tokenVersion == null) {
+            throw new UnauthorizedException("Invalid or expired refresh token");
+        }
+
+        if (!rotateRefreshTokens) {
+            if (!validateRefreshToken(username, refreshToken)) {
+                throw new UnauthorizedException("Invalid or expired refresh token");
+            }
+            return new UserResponseDTO(username,
+                    jwtService.generateToken(username, tokenVersion, verified.getRoles()), refreshToken);
+        }
+
+        Instant now = Instant.now();
+        RefreshTokenEntity current = refreshTokenRepository.findByTokenHash(TokenHashing.sha256Hex(refreshToken))
+                .filter(token -> token.getExpiresAt().isAfter(now))
+                .orElseThrow(() -> new UnauthorizedException("Invalid or expired refresh token"));
+
+        if (current.getConsumedAt() != null || refreshTokenRepository.markConsumed(current.getId(), now) == 0) {
+            rejectReuse(current, username, now);
+        }
+
+        // Roles come from the refresh token; a role change deletes every refresh token, so they are never stale
+        String newRefreshToken = jwtService.generateRefreshToken(username, verified.getRoles());
+        storeRefreshToken(current.getUserId(), current.getSessionId(), current.getFamilyId(), newRefreshToken);
+        return new UserResponseDTO(username,
+                jwtService.generateToken(username, tokenVersion, verified.getRoles()), newRefreshToken);
+    }
+
+    private void rejectReuse(RefreshTokenEntity token, String username, Instant now) {
+        Instant consumedAt = token.getConsumedAt();
+        // Lost the CAS just now, or another request rotated it a moment ago: same client racing itself
+        if (consumedAt == null || !consumedAt.plusMillis(reuseGraceMs).isBefore(now)) {
+            throw new UnauthorizedException("Refresh token already used");
+        }
+        int revoked = refreshTokenRepository.deleteFamily(token.getFamilyId());
+        logger.warn("Refresh token reuse detected for user '{}', revoked {} token(s) in its family", username, revoked);
+        throw new UnauthorizedException("Refresh token reuse detected, please log in again");
+    }
+
+    // Single lookup on the unique token_hash index; the signed subject already binds it to the user
     public boolean validateRefreshToken(String username, String refreshToken) {
-        UserEntity user = getByUsername(username);
-        return refreshToken.equals(user.getRefreshToken());
+        if (username == null || refreshToken == null) {
+            return false;
+        }
+        return refreshTokenRepository.existsByTokenHashAndConsumedAtIsNullAndExpiresAtAfter(
+                TokenHashing.sha256Hex(refreshToken), Instant.now());
+    }
+
+    private void storeRefreshToken(Long userId, String sessionId, String familyId, String refreshToken) {
+        refreshTokenRepository.save(RefreshTokenEntity.builder()
+                .tokenHash(TokenHashing.sha256Hex(refreshToken))
+                .userId(userId)
+                .sessionId(sessionId)
+                .familyId(familyId)
+                .expiresAt(Instant.now().plusMillis(jwtService.getRefreshTokenExpirationMs()))
+                .build());
     }
 
 }
@@ -0,0 +1,166 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.model.UserRegisteredEvent;
+import com.example.day2jwt.repository.UserRepository;
+import com.example.day2jwt.utils.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+/**
+ * Answers "definitely not a user" without a query, so signups of new names and
+ * repeated lookups of unknown usernames don't each cost a SELECT.
+ *
+ * A Bloom filter of every username is built at startup by streaming the users
+ * table and kept current on signup (locally and, through
+ * TokenRevocationBroadcaster, on other instances). Bloom false positives and
+ * lookups before the first build are covered by a short-TTL cache of names the
+ * database just reported missing. Until the filter is built every name "might
+ * exist" and callers fall back to the database.
+ *
+ * Other nodes' signups only arrive through TokenRevocationBroadcaster, so the
+ * filter is off without it (auth.cache.revocation.enabled=false) and dropped
+ * whenever its listener fails, until the rebuild after the reconnect. Only
+ * signup trusts a filter "no" (the unique index still catches a stale one);
+ * login and the auth filter's lookups go by isKnownMissing.
+ */
+@Component
+public class UsernameRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameRegistry.class);
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long minExpectedUsers;
+    private final double falsePositiveRate;
+    private final Cache<String, Boolean> unknownUsernames;
+    private final Counter filterRejections;
+
+    private volatile BloomFilter filter;
+    // Filter being rebuilt; signups during the rebuild go into both
+    private volatile BloomFilter building;
+
+    public UsernameRegistry(UserRepository userRepository,
+            @Value("${auth.username-filter.enabled:true}") boolean enabled,
+            @Value("${auth.cache.revocation.enabled:false}") boolean signupsBroadcast,
+            @Value("${auth.username-filter.expected-users:1000000}") long minExpectedUsers,
+            @Value("${auth.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${auth.username-filter.negative-cache.max-size:100000}") long negativeCacheSize,
+            @Value("${auth.username-filter.negative-cache.ttl:30000}") long negativeCacheTtlMs,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        // A single node sees every signup itself; several without the broadcaster would reject each other's
+        this.enabled = enabled && signupsBroadcast;
+        if (enabled && !signupsBroadcast) {
+            logger.info("Username filter disabled: needs auth.cache.revocation.enabled=true to learn remote signups");
+        }
+        this.minExpectedUsers = minExpectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.unknownUsernames = Caffeine.newBuilder()
+                .maximumSize(negativeCacheSize)
+                .expireAfterWrite(Duration.ofMillis(negativeCacheTtlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, unknownUsernames, "unknownUsername");
+        this.filterRejections = Counter.builder("auth.username-filter.rejected")
+                .description("Username lookups answered 'no such user' by the Bloom filter")
+                .register(meterRegistry);
+    }
+
+    // false means the user definitely does not exist; true means ask the database
+    public boolean mightExist(String username) {
+        if (!enabled || username == null) {
+            return true;
+        }
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(username)) {
+            filterRejections.increment();
+            return false;
+        }
+        return unknownUsernames.getIfPresent(username) == null;
+    }
+
+    // Only what the database itself said within the negative-cache TTL; a stale filter can't lock a user out
+    public boolean isKnownMissing(String username) {
+        return enabled && username != null && unknownUsernames.getIfPresent(username) != null;
+    }
+
+    // Signups may have been missed (TokenRevocationBroadcaster lost its connection): every name might
+    // exist again until the next rebuild
+    public void invalidate() {
+        if (filter != null) {
+            filter = null;
+            logger.warn("Username filter dropped until it is rebuilt");
+        }
+    }
+
+    // The database just said no; remember it briefly (covers Bloom false positives)
+    public void recordMissing(String username) {
+        if (enabled && username != null) {
+            unknownUsernames.put(username, Boolean.TRUE);
+        }
+    }
+
+    public void add(String username) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(username);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(username);
+        }
+        unknownUsernames.invalidate(username);
+    }
+
+    @EventListener
+    public void onUserRegistered(UserRegisteredEvent event) {
+        event.getUsernames().forEach(this::add);
+    }
+
+    /**
+     * Streams all usernames into a new filter sized for twice the current user
+     * count, then swaps it in. Also runs periodically, which resizes the filter as
+     * the table grows and repairs anything missed while another node was unreachable.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.username-filter.rebuild-interval:86400000}",
+            initialDelayString = "${auth.username-filter.rebuild-interval:86400000}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            long users = userRepository.count();
+            BloomFilter next = new BloomFilter(Math.max(minExpectedUsers, users * 2), falsePositiveRate);
+            // Set before streaming: a signup committed after this point is either streamed or added by add()
+            building = next;
+            try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+                usernames.forEach(next::put);
+            }
+            filter = next;
+            logger.info("Username filter built: {} users, {} KB, {} ms", users, next.sizeInBytes() / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (DataAccessException e) {
+            logger.warn("Could not build username filter, keeping the previous one: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.model.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers tokens whose signature was already verified, so a client reusing
+ * the same access token skips Base64 decoding, JSON parsing and the HMAC.
+ *
+ * The key is the compact token itself: its hash is cached by String and the
+ * equals check on lookup rules out collisions, which a bare hash key would not.
+ * Entries expire at the token's own exp. Revocation is unaffected because the
+ * tokenVersion check still runs on every request.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(@Value("${jwt.verification-cache.enabled:true}") boolean enabled,
+            @Value("${jwt.verification-cache.max-size:50000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedToken");
+    }
+
+    public VerifiedToken get(String token) {
+        return cache != null ? cache.getIfPresent(token) : null;
+    }
+
+    public void put(VerifiedToken verifiedToken) {
+        if (cache != null && verifiedToken.getExpiration() != null) {
+            cache.put(verifiedToken.getToken(), verifiedToken);
+        }
+    }
+
+    // Tokens verified with a previous key must be checked again (JwtService.reloadSigningKey)
+    public void clear() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static final class ExpireAtTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMs = value.getExpiration().getTime() - System.currentTimeMillis();
+            return Math.max(0, remainingMs) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.example.day2jwt.utils;
+
+import com.example.day2jwt.model.VerifiedToken;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Encoder/decoder for the one token shape this service issues: HS256, no kid,
+ * and a flat claim set of sub, type, jti, iat, exp, tokenVersion and rol.
+ *
+ * Claims are written straight into a reusable byte buffer, base64url-encoded
+ * in place and signed over that byte range; verification HMACs the token's
+ * characters and compares in constant time before decoding the payload. There
+ * is no claims map, no Jackson and no intermediate strings except the fields
+ * themselves. Anything else (another header, unknown claims, escapes, non-ASCII
+ * text, floats) is reported as FALLBACK so the caller can hand it to jjwt.
+ *
+ * Thread-safe. Mac instances and buffers are pooled in a few striped slots
+ * rather than ThreadLocals, which would be rebuilt for every virtual thread.
+ */
+public final class Hs256JwtCodec {
+
+    public enum Outcome {
+        OK, FALLBACK, BAD_SIGNATURE, EXPIRED
+    }
+
+    public record Decoded(Outcome outcome, VerifiedToken token) {
+    }
+
+    private static final Decoded FALLBACK = new Decoded(Outcome.FALLBACK, null);
+    private static final Decoded BAD_SIGNATURE = new Decoded(Outcome.BAD_SIGNATURE, null);
+    private static final Decoded EXPIRED = new Decoded(Outcome.EXPIRED, null);
+
+    // {"alg":"HS256"}: the header jjwt writes for an HS256 key without kid
+    static final String HEADER = "eyJhbGciOiJIUzI1NiJ9";
+    private static final byte[] HEADER_BYTES = HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final int SIGNATURE_BYTES = 32;
+    private static final int SIGNATURE_CHARS = 43;
+    private static final long ABSENT = Long.MIN_VALUE;
+
+    private static final byte[] BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64URL_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL_VALUES, (byte) -1);
+        for (int i = 0; i < BASE64URL.length; i++) {
+            BASE64URL_VALUES[BASE64URL[i]] = (byte) i;
+        }
+    }
+
+    // Claim names; a bit each to reject duplicates
+    private static final byte[] SUB = ascii("sub");
+    private static final byte[] TYPE = ascii("type");
+    private static final byte[] JTI = ascii("jti");
+    private static final byte[] IAT = ascii("iat");
+    private static final byte[] EXP = ascii("exp");
+    private static final byte[] TOKEN_VERSION = ascii("tokenVersion");
+    private static final byte[] ROL = ascii("rol");
+
+    private static final byte[] OPEN_TOKEN_VERSION = ascii("{\"tokenVersion\":");
+    private static final byte[] NEXT_ROL = ascii(",\"rol\":");
+    private static final byte[] OPEN_ROL = ascii("{\"rol\":");
+    private static final byte[] NEXT_JTI = ascii(",\"jti\":\"");
+    private static final byte[] NEXT_TYPE = ascii("\",\"type\":\"");
+    private static final byte[] NEXT_SUB = ascii("\",\"sub\":\"");
+    private static final byte[] NEXT_IAT = ascii("\",\"iat\":");
+    private static final byte[] NEXT_EXP = ascii(",\"exp\":");
+
+    private static final class Scratch {
+        final Mac mac;
+        byte[] json = new byte[256];
+        byte[] text = new byte[512];
+        final byte[] signature = new byte[SIGNATURE_BYTES];
+        final byte[] presented = new byte[SIGNATURE_BYTES];
+
+        Scratch(Mac mac) {
+            this.mac = mac;
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final int roleDefault;
+    private final AtomicReferenceArray<Scratch> pool;
+    private final int poolMask;
+
+    public Hs256JwtCodec(Key key, int roleDefault) {
+        this.key = new SecretKeySpec(key.getEncoded(), "HmacSHA256");
+        this.roleDefault = roleDefault;
+        // Power of two >= 4 x cores, so concurrent requests rarely share a slot
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        this.pool = new AtomicReferenceArray<>(stripes);
+        this.poolMask = stripes - 1;
+        newMac(); // fail at startup, not on the first request
+    }
+
+    // Returns null for values this codec does not write (the caller uses jjwt then)
+    public String encodeAccess(String jti, String subject, int tokenVersion, int roles, long iatSeconds,
+            long expSeconds) {
+        return encode(jti, "access", subject, true, tokenVersion, roles, iatSeconds, expSeconds);
+    }
+
+    public String encodeRefresh(String jti, String subject, int roles, long iatSeconds, long expSeconds) {
+        return encode(jti, "refresh", subject, false, 0, roles, iatSeconds, expSeconds);
+    }
+
+    private String encode(String jti, String type, String subject, boolean withVersion, int tokenVersion,
+            int roles, long iatSeconds, long expSeconds) {
+        if (!isPlainAscii(jti) || !isPlainAscii(subject)) {
+            return null;
+        }
+        Scratch scratch = acquire();
+        try {
+            // {"tokenVersion":0,"rol":1,"jti":"..","type":"access","sub":"..","iat":..,"exp":..}
+            byte[] json = scratch.json = ensure(scratch.json, 192 + jti.length() + subject.length());
+            int pos;
+            if (withVersion) {
+                pos = put(json, 0, OPEN_TOKEN_VERSION);
+                pos = putLong(json, pos, tokenVersion);
+                pos = put(json, pos, NEXT_ROL);
+            } else {
+                pos = put(json, 0, OPEN_ROL);
+            }
+            pos = putLong(json, pos, roles);
+            pos = put(json, pos, NEXT_JTI);
+            pos = putAscii(json, pos, jti);
+            pos = put(json, pos, NEXT_TYPE);
+            pos = putAscii(json, pos, type);
+            pos = put(json, pos, NEXT_SUB);
+            pos = putAscii(json, pos, subject);
+            pos = put(json, pos, NEXT_IAT);
+            pos = putLong(json, pos, iatSeconds);
+            pos = put(json, pos, NEXT_EXP);
+            pos = putLong(json, pos, expSeconds);
+            json[pos++] = '}';
+
+            byte[] text = scratch.text = ensure(scratch.text,
+                    HEADER_BYTES.length + 2 + (pos * 4 + 2) / 3 + SIGNATURE_CHARS);
+            int length = put(text, 0, HEADER_BYTES);
+            text[length++] = '.';
+            length = encodeBase64Url(json, pos, text, length);
+            scratch.mac.update(text, 0, length);
+            scratch.mac.doFinal(scratch.signature, 0);
+            text[length++] = '.';
+            length = encodeBase64Url(scratch.signature, SIGNATURE_BYTES, text, length);
+            return new String(text, 0, length, StandardCharsets.ISO_8859_1);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    public Decoded decode(String token, long nowMs) {
+        int headerLength = HEADER.length();
+        if (!token.startsWith(HEADER) || token.length() <= headerLength || token.charAt(headerLength) != '.') {
+            return FALLBACK;
+        }
+        int signatureStart = token.lastIndexOf('.') + 1;
+        int payloadEnd = signatureStart - 1;
+        if (payloadEnd <= headerLength + 1 || token.length() - signatureStart != SIGNATURE_CHARS
+                || token.indexOf('.', headerLength + 1) != payloadEnd) {
+            return FALLBACK;
+        }
+
+        Scratch scratch = acquire();
+        try {
+            // HMAC over the characters as bytes; they are all ASCII in any valid token
+            byte[] text = scratch.text = ensure(scratch.text, payloadEnd);
+            for (int i = 0; i < payloadEnd; i++) {
+                char c = token.charAt(i);
+                if (c >= 0x80) {
+                    return FALLBACK;
+                }
+                text[i] = (byte) c;
+            }
+            scratch.mac.update(text, 0, payloadEnd);
+            scratch.mac.doFinal(scratch.signature, 0);
+            if (decodeBase64Url(token, signatureStart, token.length(), scratch.presented, true) != SIGNATURE_BYTES) {
+                return FALLBACK;
+            }
+            if (!MessageDigest.isEqual(scratch.signature, scratch.presented)) {
+                return BAD_SIGNATURE;
+            }
+
+            int payloadStart = headerLength + 1;
+            byte[] json = scratch.json = ensure(scratch.json, (payloadEnd - payloadStart) * 3 / 4 + 1);
+            int jsonLength = decodeBase64Url(token, payloadStart, payloadEnd, json, false);
+            if (jsonLength < 0) {
+                return FALLBACK;
+            }
+            return parseClaims(token, json, jsonLength, nowMs);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    // Flat object of known claims with ASCII strings and integers; anything else is jjwt's job
+    private Decoded parseClaims(String token, byte[] json, int length, long nowMs) {
+        String subject = null;
+        String type = null;
+        String jti = null;
+        long iat = ABSENT;
+        long exp = ABSENT;
+        long tokenVersion = 0;
+        long roles = roleDefault;
+        int seen = 0;
+
+        int pos = skipWhitespace(json, 0, length);
+        if (pos >= length || json[pos++] != '{') {
+            return FALLBACK;
+        }
+        pos = skipWhitespace(json, pos, length);
+        if (pos < length && json[pos] == '}') {
+            pos++;
+        } else {
+            while (true) {
+                if (pos >= length || json[pos++] != '"') {
+                    return FALLBACK;
+                }
+                int keyStart = pos;
+                int keyEnd = scanString(json, pos, length);
+                if (keyEnd < 0) {
+                    return FALLBACK;
+                }
+                pos = skipWhitespace(json, keyEnd + 1, length);
+                if (pos >= length || json[pos++] != ':') {
+                    return FALLBACK;
+                }
+                pos = skipWhitespace(json, pos, length);
+                int keyLength = keyEnd - keyStart;
+
+                int bit;
+                if (equals(json, keyStart, keyLength, SUB)) {
+                    bit = 1;
+                } else if (equals(json, keyStart, keyLength, TYPE)) {
+                    bit = 2;
+                } else if (equals(json, keyStart, keyLength, JTI)) {
+                    bit = 4;
+                } else if (equals(json, keyStart, keyLength, IAT)) {
+                    bit = 8;
+                } else if (equals(json, keyStart, keyLength, EXP)) {
+                    bit = 16;
+                } else if (equals(json, keyStart, keyLength, TOKEN_VERSION)) {
+                    bit = 32;
+                } else if (equals(json, keyStart, keyLength, ROL)) {
+                    bit = 64;
+                } else {
+                    return FALLBACK;
+                }
+                if ((seen & bit) != 0) {
+                    return FALLBACK;
+                }
+                seen |= bit;
+
+                if (bit <= 4) {
+                    if (pos >= length || json[pos++] != '"') {
+                        return FALLBACK;
+                    }
+                    int end = scanString(json, pos, length);
+                    if (end < 0) {
+                        return FALLBACK;
+                    }
+                    String value = new String(json, pos, end - pos, StandardCharsets.ISO_8859_1);
+                    if (bit == 1) {
+                        subject = value;
+                    } else if (bit == 2) {
+                        type = value;
+                    } else {
+                        jti = value;
+                    }
+                    pos = end + 1;
+                } else {
+                    int end = scanLong(json, pos, length);
+                    if (end < 0) {
+                        return FALLBACK;
+                    }
+                    long value = parseLong(json, pos, end);
+                    if (bit == 8) {
+                        iat = value;
+                    } else if (bit == 16) {
+                        exp = value;
+                    } else if (bit == 32) {
+                        tokenVersion = value;
+                    } else {
+                        roles = value;
+                    }
+                    pos = end;
+                }
+
+                pos = skipWhitespace(json, pos, length);
+                if (pos >= length) {
+                    return FALLBACK;
+                }
+                byte separator = json[pos++];
+                if (separator == '}') {
+                    break;
+                }
+                if (separator != ',') {
+                    return FALLBACK;
+                }
+                pos = skipWhitespace(json, pos, length);
+            }
+        }
+        if (skipWhitespace(json, pos, length) != length
+                || !isEpochSeconds(iat) || !isEpochSeconds(exp) || tokenVersion != (int) tokenVersion || roles != (int) roles) {
+            return FALLBACK;
+        }
+        // Same rule as jjwt with no clock skew: expired once now is past exp
+        if (exp != ABSENT && nowMs > exp * 1000) {
+            return EXPIRED;
+        }
+        return new Decoded(Outcome.OK, new VerifiedToken(token, jti, subject, type, (int) tokenVersion,
+                (int) roles, iat != ABSENT ? new Date(iat * 1000) : null,
+                exp != ABSENT ? new Date(exp * 1000) : null, null));
+    }
+
+    private static boolean isEpochSeconds(long value) {
+        return value == ABSENT || (value >= 0 && value <= Long.MAX_VALUE / 1000);
+    }
+
+    private Scratch acquire() {
+        Scratch scratch = pool.getAndSet(stripe(), null);
+        return scratch != null ? scratch : new Scratch(newMac());
+    }
+
+    // Same stripe as acquire (same thread); if another thread refilled it, this one is dropped
+    private void release(Scratch scratch) {
+        pool.compareAndSet(stripe(), null, scratch);
+    }
+
+    @SuppressWarnings("deprecation") // Thread.threadId() needs Java 19
+    private int stripe() {
+        return (int) Thread.currentThread().getId() & poolMask;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Printable ASCII without quote or backslash: written as-is, no escaping needed
+    private static boolean isPlainAscii(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c >= 0x7f || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ensure(byte[] buffer, int capacity) {
+        return buffer.length >= capacity ? buffer : new byte[Math.max(capacity, buffer.length * 2)];
+    }
+
+    private static int put(byte[] dst, int pos, byte[] src) {
+        System.arraycopy(src, 0, dst, pos, src.length);
+        return pos + src.length;
+    }
+
+    private static int putAscii(byte[] dst, int pos, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            dst[pos++] = (byte) value.charAt(i);
+        }
+        return pos;
+    }
+
+    private static int putLong(byte[] dst, int pos, long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return put(dst, pos, ascii(Long.toString(value)));
+            }
+            dst[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            dst[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + digits;
+    }
+
+    private static int encodeBase64Url(byte[] src, int length, byte[] dst, int pos) {
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[pos++] = BASE64URL[bits >>> 18];
+            dst[pos++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[pos++] = BASE64URL[(bits >>> 6) & 0x3f];
+            dst[pos++] = BASE64URL[bits & 0x3f];
+        }
+        int remaining = length - i;
+        if (remaining == 1) {
+            int bits = (src[i] & 0xff) << 16;
+            dst[pos++] = BASE64URL[bits >>> 18];
+            dst[pos++] = BASE64URL[(bits >>> 12) & 0x3f];
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            dst[pos++] = BASE64URL[bits >>> 18];
+            dst[pos++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[pos++] = BASE64URL[(bits >>> 6) & 0x3f];
+        }
+        return pos;
+    }
+
+    // Unpadded base64url from the string range into dst; -1 on bad characters or non-zero trailing bits
+    private static int decodeBase64Url(String src, int start, int end, byte[] dst, boolean exact) {
+        int length = end - start;
+        if (length % 4 == 1) {
+            return -1;
+        }
+        int pos = 0;
+        int bits = 0;
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            char c = src.charAt(i);
+            int value = c < 128 ? BASE64URL_VALUES[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            bits = bits << 6 | value;
+            if (++count == 4) {
+                if (exact && pos + 3 > dst.length) {
+                    return -1;
+                }
+                dst[pos++] = (byte) (bits >>> 16);
+                dst[pos++] = (byte) (bits >>> 8);
+                dst[pos++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 2) {
+            if ((bits & 0xf) != 0 || (exact && pos + 1 > dst.length)) {
+                return -1;
+            }
+            dst[pos++] = (byte) (bits >>> 4);
+        } else if (count == 3) {
+            if ((bits & 0x3) != 0 || (exact && pos + 2 > dst.length)) {
+                return -1;
+            }
+            dst[pos++] = (byte) (bits >>> 10);
+            dst[pos++] = (byte) (bits >>> 2);
+        }
+        return pos;
+    }
+
+    private static int skipWhitespace(byte[] json, int pos, int length) {
+        while (pos < length && (json[pos] == ' ' || json[pos] == '\t' || json[pos] == '\n' || json[pos] == '\r')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    // Index of the closing quote; -1 for escapes, control characters, non-ASCII or no end
+    private static int scanString(byte[] json, int pos, int length) {
+        for (; pos < length; pos++) {
+            byte b = json[pos];
+            if (b == '"') {
+                return pos;
+            }
+            if (b == '\\' || b < 0x20) { // bytes >= 0x80 are negative
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // End of a JSON integer of at most 18 digits; -1 for fractions, exponents and anything else
+    private static int scanLong(byte[] json, int pos, int length) {
+        int start = pos;
+        if (pos < length && json[pos] == '-') {
+            pos++;
+        }
+        int digitsStart = pos;
+        while (pos < length && json[pos] >= '0' && json[pos] <= '9') {
+            pos++;
+        }
+        int digits = pos - digitsStart;
+        if (digits == 0 || digits > 18 || (digits > 1 && json[digitsStart] == '0')) {
+            return -1;
+        }
+        if (pos < length && (json[pos] == '.' || json[pos] == 'e' || json[pos] == 'E')) {
+            return -1;
+        }
+        return pos > start ? pos : -1;
+    }
+
+    private static long parseLong(byte[] json, int start, int end) {
+        boolean negative = json[start] == '-';
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            value = value * 10 + (json[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean equals(byte[] json, int start, int length, byte[] name) {
+        return length == name.length && Arrays.equals(json, start, start + length, name, 0, length);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.day2jwt.utils;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs at most one message per interval and counts the rest, so a flood of bad
+ * requests can't turn into a flood of log lines. Stack traces only go out at
+ * debug level.
+ */
+public final class RateLimitedLogger {
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final AtomicLong nextLogAt = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public RateLimitedLogger(Logger logger, long intervalMs) {
+        this.logger = logger;
+        this.intervalNanos = intervalMs * 1_000_000L;
+    }
+
+    public void warn(String message, Object argument) {
+        if (acquire()) {
+            long dropped = suppressed.getAndSet(0);
+            if (dropped > 0) {
+                logger.warn(message + " ({} similar messages suppressed)", argument, dropped);
+            } else {
+                logger.warn(message, argument);
+            }
+        }
+    }
+
+    public void warn(String message, Throwable error) {
+        if (acquire()) {
+            long dropped = suppressed.getAndSet(0);
+            logger.warn("{}: {} ({} similar messages suppressed)", message, error.toString(), dropped);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(message, error);
+        }
+    }
+
+    // One winner per interval; everyone else only bumps the counter
+    private boolean acquire() {
+        long now = System.nanoTime();
+        long next = nextLogAt.get();
+        if ((next == Long.MIN_VALUE || now - next >= 0) && nextLogAt.compareAndSet(next, now + intervalNanos)) {
+            return true;
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+}
@@ -1,5 +1,82 @@
 package com.example.day2jwt.utils;
 
-public class RoleEnum {
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * User roles, stored on users.roles and in the token's "rol" claim as a bit mask.
+ * The filter maps a mask to one of a few precomputed authority lists, so building
+ * the security context never allocates authorities or touches the database.
+ */
+public enum RoleEnum {
+
+    USER(1),
+    ADMIN(2),
+    // Internal services (resource servers) allowed to introspect other users' tokens
+    SERVICE(4);
+
+    public static final int ALL_MASK;
+
+    // Index = mask; one shared immutable list per possible role combination
+    private static final List<List<GrantedAuthority>> AUTHORITIES_BY_MASK;
+
+    static {
+        int all = 0;
+        for (RoleEnum role : values()) {
+            all |= role.bit;
+        }
+        ALL_MASK = all;
+        List<List<GrantedAuthority>> byMask = new ArrayList<>(all + 1);
+        for (int mask = 0; mask <= all; mask++) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (RoleEnum role : values()) {
+                if ((mask & role.bit) != 0) {
+                    authorities.add(role.authority);
+                }
+            }
+            byMask.add(List.copyOf(authorities));
+        }
+        AUTHORITIES_BY_MASK = List.copyOf(byMask);
+    }
+
+    private final int bit;
+    private final GrantedAuthority authority;
+
+    RoleEnum(int bit) {
+        this.bit = bit;
+        this.authority = new SimpleGrantedAuthority("ROLE_" + name());
+    }
+
+    public int bit() {
+        return bit;
+    }
+
+    public static int mask(Collection<RoleEnum> roles) {
+        int mask = 0;
+        for (RoleEnum role : roles) {
+            mask |= role.bit;
+        }
+        return mask;
+    }
+
+    public static Set<RoleEnum> fromMask(int mask) {
+        Set<RoleEnum> roles = EnumSet.noneOf(RoleEnum.class);
+        for (RoleEnum role : values()) {
+            if ((mask & role.bit) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+
+    // Unknown bits (roles added by a newer version) are ignored
+    public static List<GrantedAuthority> authorities(int mask) {
+        return AUTHORITIES_BY_MASK.get(mask & ALL_MASK);
+    }
 }
@@ -0,0 +1,198 @@
+package com.example.day2jwt.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cheap structural check of a compact JWS before it reaches the JWT parser.
+ *
+ * Works on a region of the original string (e.g. the Authorization header after
+ * "Bearer ") and decodes base64url bytes on the fly, so rejecting garbage costs a
+ * single scan with no allocation and no exceptions. It only rejects what the
+ * parser would certainly reject too; anything it cannot decide is passed on.
+ */
+public final class TokenPrecheck {
+
+    public enum Result {
+        OK, MALFORMED, UNSUPPORTED, EXPIRED
+    }
+
+    private static final byte[] ALG_KEY = ascii("\"alg\"");
+    private static final byte[] EXP_KEY = ascii("\"exp\"");
+
+    // base64url alphabet value per ASCII char, -1 for anything else
+    private static final byte[] BASE64URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private TokenPrecheck() {
+    }
+
+    /**
+     * @param source        string holding the token
+     * @param offset        index where the token starts
+     * @param maxLength     longest token accepted
+     * @param expectedAlg   JWS alg the current signing key uses
+     * @param nowMs         current time, for the exp peek
+     */
+    public static Result check(String source, int offset, int maxLength, String expectedAlg, long nowMs) {
+        int end = source.length();
+        int length = end - offset;
+        if (length <= 0 || length > maxLength) {
+            return Result.MALFORMED;
+        }
+
+        // header.payload.signature, all three non-empty and base64url
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = offset; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return Result.MALFORMED;
+                }
+            } else if (c >= 128 || BASE64URL[c] < 0) {
+                return Result.MALFORMED;
+            }
+        }
+        if (firstDot <= offset || secondDot <= firstDot + 1 || secondDot == end - 1) {
+            return Result.MALFORMED;
+        }
+        // Header and payload must be base64url of a JSON object
+        if (!isJsonObject(source, offset, firstDot) || !isJsonObject(source, firstDot + 1, secondDot)) {
+            return Result.MALFORMED;
+        }
+
+        // An alg other than ours (including "none") can never verify
+        int algAt = valueIndex(source, offset, firstDot, ALG_KEY);
+        if (algAt >= 0 && !matchesString(source, offset, firstDot, algAt, expectedAlg)) {
+            return Result.UNSUPPORTED;
+        }
+
+        int expAt = valueIndex(source, firstDot + 1, secondDot, EXP_KEY);
+        if (expAt >= 0) {
+            long exp = readSeconds(source, firstDot + 1, secondDot, expAt);
+            if (exp >= 0 && exp <= Long.MAX_VALUE / 1000 && exp * 1000 < nowMs) {
+                return Result.EXPIRED;
+            }
+        }
+        return Result.OK;
+    }
+
+    // A length of 4n+1 is never valid base64; otherwise look for the opening brace
+    private static boolean isJsonObject(String s, int from, int to) {
+        if ((to - from) % 4 == 1) {
+            return false;
+        }
+        int n = decodedLength(from, to);
+        int k = skipWhitespace(s, from, n, 0);
+        return k < n && decodedByte(s, from, k) == '{';
+    }
+
+    // Decoded length of the base64url segment [from, to)
+    private static int decodedLength(int from, int to) {
+        return (to - from) * 6 / 8;
+    }
+
+    // Byte k of the decoded segment, read straight from the encoded chars
+    private static int decodedByte(String s, int from, int k) {
+        int bit = k * 8;
+        int index = from + bit / 6;
+        int shift = bit % 6;
+        int bits = (BASE64URL[s.charAt(index)] << 6) | BASE64URL[s.charAt(index + 1)];
+        return (bits >> (4 - shift)) & 0xFF;
+    }
+
+    // Index of the first byte after `"key"` and `:` (whitespace allowed), or -1
+    private static int valueIndex(String s, int from, int to, byte[] key) {
+        int n = decodedLength(from, to);
+        outer:
+        for (int k = 0; k + key.length <= n; k++) {
+            for (int j = 0; j < key.length; j++) {
+                if (decodedByte(s, from, k + j) != key[j]) {
+                    continue outer;
+                }
+            }
+            int i = skipWhitespace(s, from, n, k + key.length);
+            if (i < n && decodedByte(s, from, i) == ':') {
+                return skipWhitespace(s, from, n, i + 1);
+            }
+        }
+        return -1;
+    }
+
+    // True when the JSON value at k is exactly "expected"; escapes are left to the parser
+    private static boolean matchesString(String s, int from, int to, int k, String expected) {
+        int n = decodedLength(from, to);
+        if (k >= n || decodedByte(s, from, k) != '"') {
+            return true;
+        }
+        int i = k + 1;
+        for (int j = 0; j < expected.length(); j++, i++) {
+            if (i >= n) {
+                return true;
+            }
+            int b = decodedByte(s, from, i);
+            if (b == '\\') {
+                return true;
+            }
+            if (b != expected.charAt(j)) {
+                return false;
+            }
+        }
+        return i < n && decodedByte(s, from, i) == '"';
+    }
+
+    // Integer NumericDate at k, or -1 when it is not a plain integer
+    private static long readSeconds(String s, int from, int to, int k) {
+        int n = decodedLength(from, to);
+        long value = 0;
+        int digits = 0;
+        int i = k;
+        for (; i < n; i++) {
+            int b = decodedByte(s, from, i);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            if (++digits > 18) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        if (digits == 0) {
+            return -1;
+        }
+        if (i < n) {
+            int b = decodedByte(s, from, i);
+            if (b == '.' || b == 'e' || b == 'E') {
+                return -1;
+            }
+        }
+        return value;
+    }
+
+    private static int skipWhitespace(String s, int from, int n, int k) {
+        while (k < n) {
+            int b = decodedByte(s, from, k);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                break;
+            }
+            k++;
+        }
+        return k;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.day2jwt.utils;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PBKDF2-HMAC-SHA256 that stores its iteration count in the hash
+ * ("<iterations>$<hex salt+hash>"). Spring's Pbkdf2PasswordEncoder does not,
+ * so raising or recalibrating the count would both stop old hashes from
+ * matching and hide them from upgradeEncoding.
+ *
+ * Hashes without the prefix were written by the plain encoder and are checked
+ * with the configured (uncalibrated) iteration count.
+ */
+public final class VersionedPbkdf2PasswordEncoder implements PasswordEncoder {
+
+    private static final char SEPARATOR = '$';
+    private static final int SALT_LENGTH = 16;
+    // Iteration counts come from our own table, but a corrupt one must not pin a hashing thread for minutes
+    private static final int MAX_ITERATIONS = 100_000_000;
+
+    private final int iterations;
+    private final int legacyIterations;
+    // One encoder per count seen; only a handful ever exist
+    private final Map<Integer, Pbkdf2PasswordEncoder> encoders = new ConcurrentHashMap<>();
+
+    public VersionedPbkdf2PasswordEncoder(int iterations, int legacyIterations) {
+        this.iterations = iterations;
+        this.legacyIterations = legacyIterations;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return iterations + String.valueOf(SEPARATOR) + encoder(iterations).encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        int separator = encodedPassword.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return encoder(legacyIterations).matches(rawPassword, encodedPassword);
+        }
+        int hashIterations = iterationsOf(encodedPassword, separator);
+        return hashIterations > 0
+                && encoder(hashIterations).matches(rawPassword, encodedPassword.substring(separator + 1));
+    }
+
+    // Legacy hashes and anything below the current count get rehashed on the next login
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        int separator = encodedPassword.indexOf(SEPARATOR);
+        return separator < 0 || iterationsOf(encodedPassword, separator) < iterations;
+    }
+
+    private Pbkdf2PasswordEncoder encoder(int count) {
+        return encoders.computeIfAbsent(count, c -> new Pbkdf2PasswordEncoder("", SALT_LENGTH, c,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+    }
+
+    // -1 for a malformed or out-of-range count
+    private static int iterationsOf(String encodedPassword, int separator) {
+        try {
+            int count = Integer.parseInt(encodedPassword, 0, separator, 10);
+            return count > 0 && count <= MAX_ITERATIONS ? count : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
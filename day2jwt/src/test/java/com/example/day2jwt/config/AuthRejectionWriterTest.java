@@ -0,0 +1,154 @@
+package com.example.day2jwt.config;
+
+import com.example.day2jwt.controller.AdminRevocationController;
+import com.example.day2jwt.controller.IntrospectionController;
+import com.example.day2jwt.controller.UserController;
+import com.example.day2jwt.model.VerifiedToken;
+import com.example.day2jwt.service.AuthMetrics;
+import com.example.day2jwt.service.JwtService;
+import com.example.day2jwt.service.LoginRateLimiter;
+import com.example.day2jwt.service.RevocationWatermarks;
+import com.example.day2jwt.service.TokenDenylist;
+import com.example.day2jwt.service.TokenIntrospectionService;
+import com.example.day2jwt.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import com.example.day2jwt.utils.RoleEnum;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.forwardedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Security chain only: the response must come from AuthRejectionWriter, never from an /error forward
+@WebMvcTest({ AdminRevocationController.class, IntrospectionController.class, UserController.class })
+@Import({ SecurityConfig.class, AuthRejectionWriter.class })
+class AuthRejectionWriterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private AuthMetrics authMetrics;
+
+    @MockitoBean
+    private TokenDenylist tokenDenylist;
+
+    @MockitoBean
+    private RevocationWatermarks revocationWatermarks;
+
+    @MockitoBean
+    private TokenIntrospectionService tokenIntrospectionService;
+
+    @MockitoBean
+    private LoginRateLimiter loginRateLimiter;
+
+    // @EnableJpaAuditing on the application class needs it even in a web slice
+    @MockitoBean
+    private JpaMetamodelMappingContext jpaMappingContext;
+
+    @Test
+    void missingTokenGetsBearerChallenge() throws Exception {
+        mockMvc.perform(get("/api/admin/revocations"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer"))
+                .andExpect(content().contentType("application/json"))
+                .andExpect(jsonPath("$.statusCode").value(401))
+                .andExpect(jsonPath("$.message").value("Authentication required"))
+                .andExpect(forwardedUrl(null));
+    }
+
+    @Test
+    void expiredTokenIsReportedAsSuch() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<Consumer<AuthMetrics.FailureReason>>getArgument(2)
+                    .accept(AuthMetrics.FailureReason.EXPIRED);
+            return null;
+        }).when(jwtService).verify(anyString(), anyInt(), any());
+
+        mockMvc.perform(get("/api/admin/revocations").header(HttpHeaders.AUTHORIZATION, "Bearer a.b.c"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE,
+                        "Bearer error=\"invalid_token\", error_description=\"The access token expired\""))
+                .andExpect(jsonPath("$.message").value("Token expired"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void missingRoleIsForbidden() throws Exception {
+        mockMvc.perform(get("/api/admin/revocations"))
+                .andExpect(status().isForbidden())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"insufficient_scope\""))
+                .andExpect(jsonPath("$.statusCode").value(403));
+    }
+
+    @Test
+    void refreshTokenIsNotABearerToken() throws Exception {
+        // An admin's refresh token: tokenVersion reads as 0 and the role mask is ADMIN
+        VerifiedToken refresh = new VerifiedToken("r.r.r", "jti", "admin", "refresh", 0, RoleEnum.ALL_MASK,
+                new Date(), new Date(System.currentTimeMillis() + 60_000), null);
+        when(jwtService.verify(anyString(), anyInt(), any())).thenReturn(refresh);
+        when(userService.getTokenVersion("admin")).thenReturn(0);
+        when(jwtService.isTokenValid(refresh, 0)).thenReturn(true);
+        when(revocationWatermarks.current()).thenReturn(Map.of());
+
+        mockMvc.perform(get("/api/admin/revocations").header(HttpHeaders.AUTHORIZATION, "Bearer r.r.r"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Invalid token"));
+        verify(authMetrics).recordFailure(AuthMetrics.FailureReason.WRONG_TYPE);
+    }
+
+    @Test
+    void introspectionNeedsAnAuthenticatedService() throws Exception {
+        String body = "{\"tokens\":[\"a.b.c\"]}";
+
+        mockMvc.perform(post("/api/introspect").contentType("application/json").content(body))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/introspect").contentType("application/json").content(body)
+                .with(user("alice").roles("USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/introspect").contentType("application/json").content(body)
+                .with(user("gateway").roles("SERVICE")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void logoutWithRejectedTokenIsUnauthorized() throws Exception {
+        // verify() returns null: expired, tampered or malformed
+        mockMvc.perform(post("/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer a.b.c"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/auth/logout").header(HttpHeaders.AUTHORIZATION, "Basic"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/auth/logout"))
+                .andExpect(status().isUnauthorized());
+        verify(userService, never()).logout(anyString());
+    }
+}
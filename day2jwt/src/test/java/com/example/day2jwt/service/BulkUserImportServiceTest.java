@@ -0,0 +1,137 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.dto.BulkImportResultDTO;
+import com.example.day2jwt.entity.UserEntity;
+import com.example.day2jwt.model.UserRegisteredEvent;
+import com.example.day2jwt.repository.UserRepository;
+import com.example.day2jwt.utils.RoleEnum;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Committed rows: the service runs its own transactions per chunk
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkUserImportServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private final List<String> registered = new ArrayList<>();
+    private BulkUserImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BulkUserImportService(jdbcTemplate, transactionManager, passwordEncoder, new ObjectMapper(),
+                event -> {
+                    if (event instanceof UserRegisteredEvent users) {
+                        registered.addAll(users.getUsernames());
+                    }
+                },
+                2, 2, 100);
+        userRepository.save(UserEntity.builder().username("existing").password("x").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void importsNdjsonAndReportsBadRows() throws Exception {
+        String body = String.join("\n",
+                "{\"username\":\"u1\",\"password\":\"p1\"}",
+                "{\"username\":\"u2\",\"password\":\"p2\"}",
+                "not json",
+                "",
+                "{\"username\":\"u1\",\"password\":\"again\"}",
+                "{\"username\":\"existing\",\"password\":\"p\"}",
+                "{\"username\":\"u3\"}",
+                "{\"username\":\"u4\",\"password\":\"p4\"}");
+
+        BulkImportResultDTO result = service.importUsers(new StringReader(body), BulkUserImportService.Format.NDJSON);
+
+        assertEquals(7, result.getReceived());
+        assertEquals(3, result.getCreated());
+        assertEquals(4, result.getFailed());
+        assertEquals(List.of(3L, 5L, 6L, 7L),
+                result.getErrors().stream().map(BulkImportResultDTO.RowError::getLine).sorted().toList());
+        assertEquals(List.of("u1", "u2", "u4"), registered.stream().sorted().toList());
+        UserEntity u2 = userRepository.findByUsername("u2").orElseThrow();
+        assertTrue(passwordEncoder.matches("p2", u2.getPassword()));
+        assertEquals(0, u2.getTokenVersion());
+        assertEquals(RoleEnum.USER.bit(), u2.getRoles());
+    }
+
+    @Test
+    void importsCsvWithHeaderAndQuotedFields() throws Exception {
+        String body = "username,password\n"
+                + "alice,\"pa,ss\"\"word\"\n"
+                + "bob,plain\n"
+                + "carol\n";
+
+        BulkImportResultDTO result = service.importUsers(new StringReader(body), BulkUserImportService.Format.CSV);
+
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getCreated());
+        assertEquals(4, result.getErrors().get(0).getLine());
+        assertTrue(passwordEncoder.matches("pa,ss\"word",
+                userRepository.findByUsername("alice").orElseThrow().getPassword()));
+    }
+
+    @Test
+    void committedChunksAreAnnouncedEvenIfTheUploadAborts() {
+        // Batch size 2: u1 and u2 commit as one chunk, then the client goes away
+        Reader body = new Reader() {
+            private final Reader lines = new StringReader(
+                    "{\"username\":\"u1\",\"password\":\"p1\"}\n{\"username\":\"u2\",\"password\":\"p2\"}\n"
+                            + "{\"username\":\"u3\",\"password\":\"p3\"}\n");
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = lines.read(buffer, offset, length);
+                if (read < 0) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> service.importUsers(body, BulkUserImportService.Format.NDJSON));
+
+        assertEquals(List.of("u1", "u2"), registered.stream().sorted().toList());
+        assertTrue(userRepository.findByUsername("u2").isPresent());
+        assertTrue(userRepository.findByUsername("u3").isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoginRateLimiter limiter(int ipBurst, int userBurst) {
+        return new LoginRateLimiter(true, ipBurst, 1, userBurst, 1, 1_000, 60_000,
+                new ClusterMembership(null, false, 10_000), meterRegistry);
+    }
+
+    @Test
+    void rejectsUsernameOnceItsBurstIsSpent() {
+        LoginRateLimiter limiter = limiter(100, 2);
+
+        limiter.checkLogin("alice", "10.0.0.1");
+        limiter.checkLogin("ALICE", "10.0.0.2");
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> limiter.checkLogin("alice", "10.0.0.3"));
+
+        // One token per minute: the next one is about a minute away
+        assertTrue(e.getRetryAfterSeconds() > 50 && e.getRetryAfterSeconds() <= 60, "" + e.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> limiter.checkLogin("bob", "10.0.0.1"));
+        assertEquals(1.0, meterRegistry.get("auth.rate-limit.rejected").tag("scope", "user").counter().count());
+    }
+
+    @Test
+    void rejectsClientIpAcrossUsernames() {
+        LoginRateLimiter limiter = limiter(3, 100);
+
+        limiter.checkLogin("a", "10.0.0.1");
+        limiter.checkLogin("b", "10.0.0.1");
+        limiter.checkSignup("10.0.0.1");
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkLogin("c", "10.0.0.1"));
+        assertDoesNotThrow(() -> limiter.checkLogin("c", "10.0.0.2"));
+    }
+
+    @Test
+    void splitsTheBurstAcrossNodes() {
+        LoginRateLimiter.Limit limit = new LoginRateLimiter.Limit(4, 60);
+
+        AtomicLong single = new AtomicLong(System.nanoTime());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, LoginRateLimiter.tryAcquire(single, limit, 1));
+        }
+        assertTrue(LoginRateLimiter.tryAcquire(single, limit, 1) > 0);
+
+        AtomicLong shared = new AtomicLong(System.nanoTime());
+        assertEquals(0, LoginRateLimiter.tryAcquire(shared, limit, 2));
+        assertEquals(0, LoginRateLimiter.tryAcquire(shared, limit, 2));
+        assertTrue(LoginRateLimiter.tryAcquire(shared, limit, 2) > 0);
+    }
+}
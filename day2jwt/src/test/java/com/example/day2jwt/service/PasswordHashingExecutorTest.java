@@ -0,0 +1,115 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingExecutorTest {
+
+    // One thread, room for three queued tasks
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 3, 5_000, new SimpleMeterRegistry());
+    // Stand-ins for request threads
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void queuedLoginsRunBeforeSignupsAndRehashes() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = submit(PasswordHashingExecutor.Priority.REHASH, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> rehash = submit(PasswordHashingExecutor.Priority.REHASH, () -> order.add("rehash"));
+        awaitQueued(1);
+        CompletableFuture<Void> signup = submit(PasswordHashingExecutor.Priority.SIGNUP, () -> order.add("signup"));
+        awaitQueued(2);
+        CompletableFuture<Void> login = submit(PasswordHashingExecutor.Priority.LOGIN, () -> order.add("login"));
+        awaitQueued(3);
+
+        // Pool and queue are full
+        assertThrows(ServiceUnavailableException.class,
+                () -> executor.execute(PasswordHashingExecutor.Priority.LOGIN, () -> true));
+
+        release.countDown();
+        CompletableFuture.allOf(blocker, rehash, signup, login).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("login", "signup", "rehash"), order);
+    }
+
+    @Test
+    void backgroundTaskNeverWaitsAndIsDroppedWhenFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = submit(PasswordHashingExecutor.Priority.LOGIN, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Returns while the only thread is busy; the result arrives on completion
+        CompletableFuture<String> rehashed = new CompletableFuture<>();
+        assertTrue(executor.submit(PasswordHashingExecutor.Priority.REHASH, () -> "new-hash", rehashed::complete));
+        for (int i = 0; i < 2; i++) {
+            assertTrue(executor.submit(PasswordHashingExecutor.Priority.REHASH, () -> "", hash -> {
+            }));
+        }
+        assertFalse(executor.submit(PasswordHashingExecutor.Priority.REHASH, () -> "dropped", hash -> {
+        }));
+        assertFalse(rehashed.isDone());
+
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        assertEquals("new-hash", rehashed.get(5, TimeUnit.SECONDS));
+    }
+
+    private CompletableFuture<Void> submit(PasswordHashingExecutor.Priority priority, Runnable task) {
+        return CompletableFuture.runAsync(() -> executor.execute(priority, () -> {
+            task.run();
+            return null;
+        }), callers);
+    }
+
+    private void awaitQueued(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (queueDepth() < depth) {
+            assertTrue(System.currentTimeMillis() < deadline, "task was not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    private int queueDepth() {
+        return ((ThreadPoolExecutor) ReflectionTestUtils.getField(executor, "executor")).getQueue().size();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.config.PasswordConfig;
+import com.example.day2jwt.dto.UserRequestDTO;
+import com.example.day2jwt.dto.UserResponseDTO;
+import com.example.day2jwt.exception.UnauthorizedException;
+import com.example.day2jwt.repository.RefreshTokenRepository;
+import com.example.day2jwt.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Real transactional UserService proxy and committed data, so concurrent refreshes really race
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "jwt.refresh.rotate=true",
+        "auth.password.bcrypt.strength=4"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ UserService.class, AuthMetrics.class, JwtService.class, SigningKeyRing.class, VerifiedTokenCache.class,
+        TokenVersionCache.class, PasswordHashingExecutor.class, PasswordConfig.class, SimpleMeterRegistry.class,
+        UsernameRegistry.class, RevocationWatermarks.class })
+class RefreshTokenRotationTest {
+
+    private static final int CONCURRENT_CLIENTS = 16;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @BeforeEach
+    void setUp() {
+        // The context (and this bean) is shared between tests
+        ReflectionTestUtils.setField(unwrap(userService), "reuseGraceMs", 2_000L);
+        UserRequestDTO request = new UserRequestDTO();
+        request.setUsername("alice");
+        request.setPassword("secret");
+        userService.signup(request);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentRefreshOfOneTokenHasExactlyOneWinner() throws Exception {
+        String refreshToken = userService.login("alice", "secret", null).getRefreshToken();
+
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<UserResponseDTO>> results = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_CLIENTS; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    return userService.refresh(refreshToken);
+                } catch (UnauthorizedException e) {
+                    rejected.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+
+        List<UserResponseDTO> winners = new ArrayList<>();
+        for (Future<UserResponseDTO> result : results) {
+            UserResponseDTO tokens = result.get();
+            if (tokens != null) {
+                winners.add(tokens);
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, winners.size());
+        assertEquals(CONCURRENT_CLIENTS - 1, rejected.get());
+        // Losers raced inside the grace window, so the family must survive
+        assertTrue(userService.validateRefreshToken("alice", winners.get(0).getRefreshToken()));
+        assertEquals(2, refreshTokenRepository.count());
+    }
+
+    @Test
+    void replayAfterGraceRevokesWholeFamily() {
+        ReflectionTestUtils.setField(unwrap(userService), "reuseGraceMs", 0L);
+        String first = userService.login("alice", "secret", null).getRefreshToken();
+        String second = userService.refresh(first).getRefreshToken();
+        String third = userService.refresh(second).getRefreshToken();
+
+        assertThrows(UnauthorizedException.class, () -> userService.refresh(first));
+
+        assertFalse(userService.validateRefreshToken("alice", third));
+        assertEquals(0, refreshTokenRepository.count());
+    }
+
+    @Test
+    void otherFamiliesSurviveRevocation() {
+        ReflectionTestUtils.setField(unwrap(userService), "reuseGraceMs", 0L);
+        String phone = userService.login("alice", "secret", "phone").getRefreshToken();
+        String laptop = userService.login("alice", "secret", "laptop").getRefreshToken();
+        userService.refresh(phone);
+
+        assertThrows(UnauthorizedException.class, () -> userService.refresh(phone));
+
+        assertTrue(userService.validateRefreshToken("alice", laptop));
+    }
+
+    private static Object unwrap(Object proxy) {
+        return AopTestUtils.getTargetObject(proxy);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.day2jwt.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SigningKeyRingTest {
+
+    private static final String SECRET = "test_secret_test_secret_test_secret_test_secret_test_secret_64b";
+    private static final long INTERVAL = 3_600_000L;
+
+    // Starts on a slot boundary; tests move it forward by whole slots
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis() / INTERVAL * INTERVAL);
+
+    private SigningKeyRing keyRing(String algorithm, long gracePeriodMs) {
+        return new SigningKeyRing(SECRET, algorithm, gracePeriodMs, INTERVAL, null, clock::get);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> publishedKids(SigningKeyRing keyRing) {
+        return ((List<Map<String, Object>>) keyRing.jwks().get("keys")).stream()
+                .map(jwk -> (String) jwk.get("kid"))
+                .toList();
+    }
+
+    private JwtService jwtService(SigningKeyRing keyRing) {
+        return jwtService(keyRing, new VerifiedTokenCache(false, 0, new SimpleMeterRegistry()));
+    }
+
+    private JwtService jwtService(SigningKeyRing keyRing, VerifiedTokenCache verifiedTokenCache) {
+        JwtService jwtService = new JwtService(verifiedTokenCache, keyRing,
+                new AuthMetrics(new SimpleMeterRegistry()), new RevocationWatermarks(null, event -> {
+                }));
+        ReflectionTestUtils.setField(jwtService, "jwtAccessTokenExpirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "jwtRefreshTokenExpirationMs", 600_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        return jwtService;
+    }
+
+    @Test
+    void asymmetricTokensStillVerifyAfterRotation() {
+        for (String algorithm : List.of("RS256", "ES256")) {
+            SigningKeyRing keyRing = keyRing(algorithm, 60_000L);
+            JwtService jwtService = jwtService(keyRing);
+            String before = jwtService.generateToken("alice", 0);
+
+            clock.addAndGet(INTERVAL);
+            keyRing.refresh();
+            String after = jwtService.generateToken("alice", 0);
+
+            assertNotNull(jwtService.verify(before), algorithm);
+            assertNotNull(jwtService.verify(after), algorithm);
+            // Retiring, current and next
+            assertEquals(3, publishedKids(keyRing).size(), algorithm);
+        }
+    }
+
+    @Test
+    void nextKeyIsPublishedBeforeItSigns() {
+        SigningKeyRing keyRing = keyRing("ES256", 60_000L);
+        String first = keyRing.current().kid();
+        List<String> published = publishedKids(keyRing);
+        assertEquals(2, published.size());
+
+        // No refresh() needed at the boundary
+        clock.addAndGet(INTERVAL);
+        String second = keyRing.current().kid();
+
+        assertTrue(published.contains(first));
+        assertTrue(published.contains(second));
+        assertFalse(first.equals(second));
+    }
+
+    @Test
+    void retiredKeyIsRejectedAfterGracePeriod() {
+        SigningKeyRing keyRing = keyRing("ES256", 0L);
+        JwtService jwtService = jwtService(keyRing);
+        String before = jwtService.generateToken("alice", 0);
+
+        clock.addAndGet(INTERVAL);
+        keyRing.refresh();
+
+        assertNull(jwtService.verify(before));
+    }
+
+    @Test
+    void jwksPublishesPublicKeyMaterialOnly() {
+        SigningKeyRing keyRing = keyRing("RS256", 60_000L);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> jwk = ((List<Map<String, Object>>) keyRing.jwks().get("keys")).get(0);
+
+        assertEquals("RSA", jwk.get("kty"));
+        assertEquals("AQAB", jwk.get("e"));
+        assertFalse(jwk.containsKey("d"));
+    }
+
+    @Test
+    void hmacModeHasNoKidAndEmptyJwks() {
+        SigningKeyRing keyRing = new SigningKeyRing(SECRET, "HS256", 60_000L);
+
+        assertNull(keyRing.current().kid());
+        assertTrue(((List<?>) keyRing.jwks().get("keys")).isEmpty());
+        assertNotNull(jwtService(keyRing).verify(jwtService(keyRing).generateToken("alice", 0)));
+    }
+
+    @Test
+    void secretFileChangeReplacesKeyAndDropsCachedTokens(@TempDir Path dir) throws Exception {
+        SigningKeyRing keyRing = new SigningKeyRing(SECRET, "HS256", 60_000L);
+        JwtService jwtService = jwtService(keyRing, new VerifiedTokenCache(true, 100, new SimpleMeterRegistry()));
+        String before = jwtService.generateToken("alice", 0);
+        assertNotNull(jwtService.verify(before));
+
+        Path secretFile = dir.resolve("jwt-secret");
+        Files.writeString(secretFile, SECRET + "\n");
+        SigningSecretWatcher watcher = new SigningSecretWatcher(jwtService);
+        ReflectionTestUtils.setField(watcher, "secretFile", secretFile.toString());
+        watcher.checkForNewSecret();
+        // Same secret: nothing reloaded, the cached token stays valid
+        assertNotNull(jwtService.verify(before));
+
+        Files.writeString(secretFile, "rotated_secret_rotated_secret_rotated_secret_rotated_secret_64b");
+        Files.setLastModifiedTime(secretFile, FileTime.fromMillis(System.currentTimeMillis() + 1_000));
+        watcher.checkForNewSecret();
+
+        assertNull(jwtService.verify(before));
+        assertNotNull(jwtService.verify(jwtService.generateToken("alice", 0)));
+    }
+}
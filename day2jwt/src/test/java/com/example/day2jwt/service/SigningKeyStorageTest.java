@@ -0,0 +1,59 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.repository.SigningKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Two instances (or one restarted) sharing the signing_keys table
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SigningKeyStorageTest {
+
+    private static final String SECRET = "test_secret_test_secret_test_secret_test_secret_test_secret_64b";
+
+    @Autowired
+    private SigningKeyRepository signingKeyRepository;
+
+    @AfterEach
+    void tearDown() {
+        signingKeyRepository.deleteAll();
+    }
+
+    private SigningKeyRing instance() {
+        SigningKeyRing keyRing = new SigningKeyRing(SECRET, "ES256", 600_000L, 3_600_000L, signingKeyRepository,
+                System::currentTimeMillis);
+        keyRing.refresh();
+        return keyRing;
+    }
+
+    private JwtService jwtService(SigningKeyRing keyRing) {
+        JwtService jwtService = new JwtService(new VerifiedTokenCache(false, 0, new SimpleMeterRegistry()), keyRing,
+                new AuthMetrics(new SimpleMeterRegistry()), new RevocationWatermarks(null, event -> {
+                }));
+        ReflectionTestUtils.setField(jwtService, "jwtAccessTokenExpirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "jwtRefreshTokenExpirationMs", 600_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        return jwtService;
+    }
+
+    @Test
+    void instancesShareKeys() {
+        SigningKeyRing nodeA = instance();
+        SigningKeyRing nodeB = instance();
+
+        assertEquals(nodeA.current().kid(), nodeB.current().kid());
+        assertEquals(nodeA.jwks(), nodeB.jwks());
+        // Current and next slot, created once
+        assertEquals(2, signingKeyRepository.count());
+        assertNotNull(jwtService(nodeB).verify(jwtService(nodeA).generateToken("alice", 0)));
+    }
+}
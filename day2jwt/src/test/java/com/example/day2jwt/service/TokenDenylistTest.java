@@ -0,0 +1,79 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.model.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenDenylistTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static TokenDenylist denylist(String snapshotFile) {
+        return new TokenDenylist(true, snapshotFile, 60_000L, new SimpleMeterRegistry());
+    }
+
+    private static VerifiedToken token(String jti, String username, int tokenVersion, long expiresInMs) {
+        Date now = new Date();
+        return new VerifiedToken("token-" + jti, jti, username, "access", tokenVersion, 1, now,
+                new Date(now.getTime() + expiresInMs), null);
+    }
+
+    @Test
+    void revokesSingleTokensByJti() {
+        TokenDenylist denylist = denylist("");
+        VerifiedToken revoked = token("a", "alice", 0, 60_000);
+
+        denylist.revoke(revoked);
+
+        assertTrue(denylist.isRevoked(revoked));
+        assertFalse(denylist.isRevoked(token("b", "alice", 0, 60_000)));
+    }
+
+    @Test
+    void revokesEveryTokenOfAUserBelowTheNewVersion() {
+        TokenDenylist denylist = denylist("");
+
+        denylist.revokeUser("alice", 3);
+
+        assertTrue(denylist.isRevoked(token("a", "alice", 2, 60_000)));
+        assertFalse(denylist.isRevoked(token("b", "alice", 3, 60_000)));
+        assertFalse(denylist.isRevoked(token("c", "bob", 0, 60_000)));
+    }
+
+    @Test
+    void dropsEntriesOnceTheirTokensHaveExpired() {
+        TokenDenylist denylist = denylist("");
+        denylist.revoke(token("a", "alice", 0, -1));
+        denylist.revoke(token("b", "alice", 0, 60_000));
+
+        denylist.purgeExpired();
+
+        assertEquals(1, denylist.size());
+    }
+
+    @Test
+    void survivesRestartThroughSnapshot() {
+        String file = tempDir.resolve("denylist.snapshot").toString();
+        TokenDenylist before = denylist(file);
+        VerifiedToken revoked = token("a", "alice", 0, 60_000);
+        before.revoke(revoked);
+        before.revokeUser("bob", 2);
+        before.saveSnapshot();
+
+        TokenDenylist after = denylist(file);
+        after.loadSnapshot();
+
+        assertEquals(2, after.size());
+        assertTrue(after.isRevoked(revoked));
+        assertTrue(after.isRevoked(token("b", "bob", 1, 60_000)));
+    }
+}
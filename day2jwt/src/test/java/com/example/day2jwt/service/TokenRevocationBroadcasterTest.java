@@ -0,0 +1,145 @@
+package com.example.day2jwt.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.actuate.health.Status;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationBroadcasterTest {
+
+    private TokenVersionCache cache;
+    private TokenDenylist denylist;
+    private RevocationWatermarks watermarks;
+    private TokenRevocationBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TokenVersionCache(100, 60_000, new SimpleMeterRegistry());
+        // No database needed: payloads are fed in as if they came from LISTEN
+        denylist = new TokenDenylist(true, "", 60_000L, new SimpleMeterRegistry());
+        watermarks = new RevocationWatermarks(null, event -> {
+        });
+        broadcaster = new TokenRevocationBroadcaster(null, null, cache, null, denylist, watermarks,
+                "token_version_changed", "user_registered", "revocation_watermark");
+    }
+
+    @Test
+    void notificationAdvancesCachedVersion() {
+        cache.put("alice", 3);
+
+        broadcaster.handleNotification(TokenRevocationBroadcaster.toPayload("alice", 4));
+
+        assertEquals(4, cache.get("alice", name -> null));
+        assertEquals(1, denylist.size());
+    }
+
+    @Test
+    void usernameMayContainSeparator() {
+        broadcaster.handleNotification(TokenRevocationBroadcaster.toPayload("a:b", 2));
+
+        assertEquals(2, cache.get("a:b", name -> null));
+    }
+
+    @Test
+    void staleNotificationNeverMovesVersionBackwards() {
+        cache.put("alice", 5);
+
+        broadcaster.handleNotification(TokenRevocationBroadcaster.toPayload("alice", 4));
+
+        assertEquals(5, cache.get("alice", name -> null));
+    }
+
+    @Test
+    void malformedPayloadIsIgnored() {
+        broadcaster.handleNotification("not-a-version:alice");
+        broadcaster.handleNotification("alice");
+
+        assertNull(cache.get("alice", name -> null));
+    }
+
+    @Test
+    void watermarkNotificationOnlyMovesForward() {
+        broadcaster.handleWatermarkNotification("2000:global");
+        broadcaster.handleWatermarkNotification("1000:global");
+        broadcaster.handleWatermarkNotification("garbage");
+
+        assertEquals(Map.of("global", Instant.ofEpochMilli(2000)), watermarks.current());
+    }
+
+    @Test
+    void listenLoopSurvivesRuntimeFailures() throws Exception {
+        UsernameRegistry registry = mock(UsernameRegistry.class);
+        doThrow(new IllegalStateException("listener bug")).when(registry).add(anyString());
+        PGNotification[] batch = {
+                notification("user_registered", "bob"),
+                notification("token_version_changed", "5:alice") };
+        PGConnection pgConnection = mock(PGConnection.class);
+        when(pgConnection.getNotifications(anyInt()))
+                .thenReturn(batch)
+                .thenAnswer(invocation -> {
+                    Thread.sleep(10);
+                    return null;
+                });
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+
+        AtomicInteger attempts = new AtomicInteger();
+        TokenRevocationBroadcaster looping = new TokenRevocationBroadcaster(null, null, cache, registry,
+                new TokenDenylist(false, "", 60_000L, new SimpleMeterRegistry()), watermarks,
+                "token_version_changed", "user_registered", "revocation_watermark") {
+            @Override
+            Connection openConnection() {
+                // First attempt fails the way a data-access error on replay would
+                if (attempts.getAndIncrement() == 0) {
+                    throw new IllegalStateException("replay failed");
+                }
+                return connection;
+            }
+        };
+
+        looping.start();
+        try {
+            awaitTrue(() -> Integer.valueOf(5).equals(cache.get("alice", name -> null)));
+            awaitTrue(() -> looping.health().getStatus().equals(Status.UP));
+            assertEquals(2, attempts.get());
+            // The reconnect after the first failure plus the handler that threw
+            assertEquals(2L, looping.health().getDetails().get("failures"));
+        } finally {
+            looping.stop();
+        }
+    }
+
+    private static PGNotification notification(String channel, String payload) {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getName()).thenReturn(channel);
+        when(notification.getParameter()).thenReturn(payload);
+        return notification;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 10s");
+            Thread.sleep(20);
+        }
+    }
+}
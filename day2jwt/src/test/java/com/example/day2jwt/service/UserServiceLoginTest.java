@@ -0,0 +1,222 @@
+package com.example.day2jwt.service;
+
+import com.example.day2jwt.dto.UserRequestDTO;
+import com.example.day2jwt.dto.UserResponseDTO;
+import com.example.day2jwt.entity.UserEntity;
+import com.example.day2jwt.exception.UnauthorizedException;
+import com.example.day2jwt.model.UserRegisteredEvent;
+import com.example.day2jwt.repository.RefreshTokenRepository;
+import com.example.day2jwt.repository.RevocationWatermarkRepository;
+import com.example.day2jwt.repository.UserRepository;
+import com.example.day2jwt.utils.RoleEnum;
+import com.example.day2jwt.utils.TokenHashing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UserServiceLoginTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevocationWatermarkRepository revocationWatermarkRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private JwtService jwtService;
+    private RevocationWatermarks revocationWatermarks;
+    private UserService userService;
+    private UsernameRegistry usernameRegistry;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        revocationWatermarks = new RevocationWatermarks(revocationWatermarkRepository, event -> {
+        });
+        jwtService = new JwtService(new VerifiedTokenCache(false, 0, meterRegistry),
+                new SigningKeyRing("test_secret_test_secret_test_secret_test_secret_test_secret_64b", "HS256", 600_000L),
+                new AuthMetrics(meterRegistry), revocationWatermarks);
+        ReflectionTestUtils.setField(jwtService, "jwtAccessTokenExpirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "jwtRefreshTokenExpirationMs", 600_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        usernameRegistry = new UsernameRegistry(userRepository, true, true, 1_000, 0.01, 100, 30_000, meterRegistry);
+        userService = new UserService(userRepository, refreshTokenRepository, passwordEncoder,
+                new TokenVersionCache(100, 60_000, meterRegistry),
+                event -> {
+                    if (event instanceof UserRegisteredEvent registered) {
+                        usernameRegistry.onUserRegistered(registered);
+                    }
+                },
+                new PasswordHashingExecutor(1, 4, 5_000, meterRegistry),
+                jwtService,
+                new AuthMetrics(meterRegistry),
+                usernameRegistry,
+                new TransactionTemplate(transactionManager));
+
+        userRepository.save(UserEntity.builder()
+                .username("alice")
+                .password(passwordEncoder.encode("secret"))
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        usernameRegistry.rebuild();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void loginUsesOneSelectAndOneInsert() {
+        UserResponseDTO tokens = userService.login("alice", "secret", null);
+        entityManager.flush();
+
+        assertNotNull(tokens.getAccessToken());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertTrue(userService.validateRefreshToken("alice", tokens.getRefreshToken()));
+    }
+
+    @Test
+    void loginFromSameDeviceReplacesItsSession() {
+        UserResponseDTO first = userService.login("alice", "secret", "phone");
+        UserResponseDTO other = userService.login("alice", "secret", "laptop");
+        UserResponseDTO second = userService.login("alice", "secret", "phone");
+        entityManager.flush();
+
+        assertEquals(2, refreshTokenRepository.count());
+        assertFalse(userService.validateRefreshToken("alice", first.getRefreshToken()));
+        assertTrue(userService.validateRefreshToken("alice", other.getRefreshToken()));
+        assertTrue(userService.validateRefreshToken("alice", second.getRefreshToken()));
+        assertEquals(64, TokenHashing.sha256Hex(second.getRefreshToken()).length());
+    }
+
+    @Test
+    void logoutEndsAllSessions() {
+        UserResponseDTO phone = userService.login("alice", "secret", "phone");
+        UserResponseDTO laptop = userService.login("alice", "secret", "laptop");
+
+        userService.logout("alice");
+        entityManager.flush();
+
+        assertFalse(userService.validateRefreshToken("alice", phone.getRefreshToken()));
+        assertFalse(userService.validateRefreshToken("alice", laptop.getRefreshToken()));
+    }
+
+    @Test
+    void wrongPasswordDoesNotWrite() {
+        assertThrows(UnauthorizedException.class, () -> userService.login("alice", "wrong", null));
+        entityManager.flush();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void unknownUserIsUnauthorizedWithOneQuery() {
+        UnauthorizedException e = assertThrows(UnauthorizedException.class,
+                () -> userService.login("nobody", "secret", null));
+
+        assertEquals("Invalid credentials", e.getMessage());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        // The database's answer is remembered and also answers the auth filter's lookup
+        assertThrows(UnauthorizedException.class, () -> userService.login("nobody", "secret", null));
+        assertNull(userService.getTokenVersion("nobody"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void userMissingFromFilterCanStillLogIn() {
+        // Signed up on another node whose broadcast never arrived
+        userRepository.save(UserEntity.builder()
+                .username("carol")
+                .password(passwordEncoder.encode("secret"))
+                .build());
+        assertFalse(usernameRegistry.mightExist("carol"));
+
+        assertEquals(0, userService.getTokenVersion("carol"));
+        assertEquals("carol", userService.getByUsername("carol").getUsername());
+        assertNotNull(userService.login("carol", "secret", null).getAccessToken());
+    }
+
+    @Test
+    void signupMakesNewUserKnownToTheFilter() {
+        assertFalse(usernameRegistry.mightExist("bob"));
+
+        UserRequestDTO request = new UserRequestDTO();
+        request.setUsername("bob");
+        request.setPassword("secret");
+        userService.signup(request);
+
+        assertTrue(usernameRegistry.mightExist("bob"));
+        assertNotNull(userService.login("bob", "secret", null).getAccessToken());
+    }
+
+    @Test
+    void roleChangeRevokesTokensAndAppliesOnNextLogin() {
+        UserResponseDTO before = userService.login("alice", "secret", null);
+        assertEquals(RoleEnum.USER.bit(), jwtService.verify(before.getAccessToken()).getRoles());
+
+        userService.updateRoles("alice", Set.of(RoleEnum.USER, RoleEnum.ADMIN));
+
+        assertFalse(jwtService.isTokenValid(jwtService.verify(before.getAccessToken()),
+                userService.getTokenVersion("alice")));
+        assertThrows(UnauthorizedException.class, () -> userService.refresh(before.getRefreshToken()));
+        UserResponseDTO after = userService.login("alice", "secret", null);
+        int roles = jwtService.verify(after.getAccessToken()).getRoles();
+        assertEquals(Set.of(RoleEnum.USER, RoleEnum.ADMIN), RoleEnum.fromMask(roles));
+        // Refresh keeps the roles without reloading the user
+        assertEquals(roles, jwtService.verify(userService.refresh(after.getRefreshToken()).getAccessToken()).getRoles());
+    }
+
+    @Test
+    void watermarkRevokesEarlierTokensWithoutTouchingUsers() throws Exception {
+        UserResponseDTO before = userService.login("alice", "secret", null);
+        Integer tokenVersion = userService.getTokenVersion("alice");
+        assertTrue(jwtService.isTokenValid(jwtService.verify(before.getAccessToken()), tokenVersion));
+
+        revocationWatermarks.revoke(RevocationWatermarks.GLOBAL);
+
+        assertFalse(jwtService.isTokenValid(jwtService.verify(before.getAccessToken()), tokenVersion));
+        assertThrows(UnauthorizedException.class, () -> userService.refresh(before.getRefreshToken()));
+        assertEquals(tokenVersion, userService.getTokenVersion("alice"));
+        // iat has second resolution: only tokens from the following second on are accepted again
+        Thread.sleep(1_000 - System.currentTimeMillis() % 1_000);
+        UserResponseDTO after = userService.login("alice", "secret", null);
+        assertTrue(jwtService.isTokenValid(jwtService.verify(after.getAccessToken()), tokenVersion));
+    }
+}
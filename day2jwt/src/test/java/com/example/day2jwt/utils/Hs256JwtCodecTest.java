@@ -0,0 +1,116 @@
+package com.example.day2jwt.utils;
+
+import com.example.day2jwt.model.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Hs256JwtCodecTest {
+
+    private static final Key KEY = Keys.hmacShaKeyFor(
+            "test_secret_test_secret_test_secret_test_secret_test_secret_64b".getBytes());
+
+    private final Hs256JwtCodec codec = new Hs256JwtCodec(KEY, RoleEnum.USER.bit());
+
+    private static Claims parseWithJjwt(String token) {
+        return Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(token).getBody();
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    @Test
+    void jjwtAcceptsEncodedTokens() {
+        long now = nowSeconds();
+        // Different lengths move the padding of every base64 segment
+        for (String subject : new String[] { "a", "ab", "abc", "alice@example.com" }) {
+            String jti = UUID.randomUUID().toString();
+            Claims access = parseWithJjwt(codec.encodeAccess(jti, subject, 7, 3, now, now + 60));
+
+            assertEquals(subject, access.getSubject());
+            assertEquals(jti, access.getId());
+            assertEquals("access", access.get("type"));
+            assertEquals(7, access.get("tokenVersion"));
+            assertEquals(3, access.get("rol"));
+            assertEquals(new Date(now * 1000), access.getIssuedAt());
+            assertEquals(new Date((now + 60) * 1000), access.getExpiration());
+
+            Claims refresh = parseWithJjwt(codec.encodeRefresh(jti, subject, 1, now, now + 60));
+            assertEquals("refresh", refresh.get("type"));
+            assertEquals(1, refresh.get("rol"));
+            assertNull(refresh.get("tokenVersion"));
+        }
+    }
+
+    @Test
+    void decodesTokensIssuedByJjwt() {
+        Date issuedAt = new Date(nowSeconds() * 1000);
+        Date expiration = new Date(issuedAt.getTime() + 60_000);
+        String token = Jwts.builder()
+                .setClaims(new java.util.HashMap<>(java.util.Map.of("tokenVersion", 4, "rol", 2)))
+                .setId("id-1")
+                .claim("type", "access")
+                .setSubject("bob")
+                .setIssuedAt(issuedAt)
+                .setExpiration(expiration)
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        Hs256JwtCodec.Decoded decoded = codec.decode(token, System.currentTimeMillis());
+
+        assertEquals(Hs256JwtCodec.Outcome.OK, decoded.outcome());
+        VerifiedToken verified = decoded.token();
+        assertEquals("bob", verified.getSubject());
+        assertEquals("id-1", verified.getId());
+        assertEquals("access", verified.getType());
+        assertEquals(4, verified.getTokenVersion());
+        assertEquals(2, verified.getRoles());
+        assertEquals(issuedAt, verified.getIssuedAt());
+        assertEquals(expiration, verified.getExpiration());
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        long now = nowSeconds();
+        String token = codec.encodeAccess("id", "alice", 0, 1, now, now + 60);
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A')
+                + token.charAt(token.length() - 1);
+        String expired = codec.encodeAccess("id", "alice", 0, 1, now - 120, now - 60);
+
+        assertEquals(Hs256JwtCodec.Outcome.BAD_SIGNATURE, codec.decode(tampered, System.currentTimeMillis()).outcome());
+        assertEquals(Hs256JwtCodec.Outcome.EXPIRED, codec.decode(expired, System.currentTimeMillis()).outcome());
+        assertThrows(ExpiredJwtException.class, () -> parseWithJjwt(expired));
+    }
+
+    @Test
+    void leavesUnusualTokensToJjwt() {
+        Date expiration = new Date(System.currentTimeMillis() + 60_000);
+        String otherClaims = Jwts.builder().setSubject("alice").setAudience("elsewhere").setExpiration(expiration)
+                .signWith(KEY, SignatureAlgorithm.HS256).compact();
+        String withKid = Jwts.builder().setHeaderParam("kid", "k1").setSubject("alice").setExpiration(expiration)
+                .signWith(KEY, SignatureAlgorithm.HS256).compact();
+        String nonAscii = Jwts.builder().setSubject("zoë").setExpiration(expiration)
+                .signWith(KEY, SignatureAlgorithm.HS256).compact();
+
+        long now = System.currentTimeMillis();
+        assertEquals(Hs256JwtCodec.Outcome.FALLBACK, codec.decode(otherClaims, now).outcome());
+        assertEquals(Hs256JwtCodec.Outcome.FALLBACK, codec.decode(withKid, now).outcome());
+        assertEquals(Hs256JwtCodec.Outcome.FALLBACK, codec.decode(nonAscii, now).outcome());
+        assertEquals(Hs256JwtCodec.Outcome.FALLBACK, codec.decode("not.a.token", now).outcome());
+        assertNull(codec.encodeAccess("id", "zoë", 0, 1, nowSeconds(), nowSeconds() + 60));
+        assertNull(codec.encodeAccess("id", "a\"b", 0, 1, nowSeconds(), nowSeconds() + 60));
+    }
+}
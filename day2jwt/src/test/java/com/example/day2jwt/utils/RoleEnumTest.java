@@ -0,0 +1,29 @@
+package com.example.day2jwt.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoleEnumTest {
+
+    @Test
+    void mapsMasksToSharedAuthorityLists() {
+        int mask = RoleEnum.mask(EnumSet.of(RoleEnum.USER, RoleEnum.ADMIN));
+
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), AuthorityUtils.authorityListToSet(RoleEnum.authorities(mask)));
+        assertSame(RoleEnum.authorities(mask), RoleEnum.authorities(mask));
+        assertEquals(EnumSet.of(RoleEnum.USER, RoleEnum.ADMIN), RoleEnum.fromMask(mask));
+    }
+
+    @Test
+    void ignoresUnknownBits() {
+        assertEquals(RoleEnum.authorities(RoleEnum.USER.bit()), RoleEnum.authorities(RoleEnum.USER.bit() | 1 << 30));
+        assertTrue(RoleEnum.authorities(0).isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.day2jwt.utils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.security.Key;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenPrecheckTest {
+
+    private static final Key KEY = Keys.hmacShaKeyFor(
+            "test_secret_test_secret_test_secret_test_secret_test_secret_64b".getBytes());
+    private static final String PREFIX = "Bearer ";
+
+    private static TokenPrecheck.Result check(String token) {
+        return TokenPrecheck.check(PREFIX + token, PREFIX.length(), 8192, "HS256", System.currentTimeMillis());
+    }
+
+    private static String token(long expiresInMs) {
+        return Jwts.builder()
+                .setSubject("alice")
+                .claim("type", "access")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + expiresInMs))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Test
+    void acceptsWellFormedTokens() {
+        // Different lengths shift where "exp" lands in the base64 grouping
+        for (String subject : new String[] { "a", "ab", "abc", "abcd" }) {
+            String token = Jwts.builder().setSubject(subject)
+                    .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                    .signWith(KEY, SignatureAlgorithm.HS256).compact();
+            assertEquals(TokenPrecheck.Result.OK, check(token), subject);
+        }
+        assertEquals(TokenPrecheck.Result.OK, check(token(60_000)));
+    }
+
+    @Test
+    void rejectsExpiredTokensWithoutParsing() {
+        assertEquals(TokenPrecheck.Result.EXPIRED, check(token(-60_000)));
+    }
+
+    @Test
+    void rejectsForeignAlgorithms() {
+        String unsigned = Jwts.builder().setSubject("alice").compact() + "sig";
+        assertEquals(TokenPrecheck.Result.UNSUPPORTED, check(unsigned));
+
+        String hs512 = Jwts.builder().setSubject("alice")
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS512), SignatureAlgorithm.HS512).compact();
+        assertEquals(TokenPrecheck.Result.UNSUPPORTED, check(hs512));
+    }
+
+    @Test
+    void rejectsStructuralGarbage() {
+        assertEquals(TokenPrecheck.Result.MALFORMED, check(""));
+        assertEquals(TokenPrecheck.Result.MALFORMED, check("not-a-token"));
+        assertEquals(TokenPrecheck.Result.MALFORMED, check("a.b"));
+        assertEquals(TokenPrecheck.Result.MALFORMED, check("a.b."));
+        assertEquals(TokenPrecheck.Result.MALFORMED, check("a..c"));
+        assertEquals(TokenPrecheck.Result.MALFORMED, check("a.b.c.d"));
+        assertEquals(TokenPrecheck.Result.MALFORMED, check("a+b.c/d.e=f"));
+        assertEquals(TokenPrecheck.Result.MALFORMED, check("not.a.token"));
+        assertEquals(TokenPrecheck.Result.MALFORMED, check(token(60_000).replace('.', ' ')));
+        assertEquals(TokenPrecheck.Result.MALFORMED,
+                TokenPrecheck.check(PREFIX + token(60_000), PREFIX.length(), 32, "HS256", 0));
+    }
+
+    @Test
+    void passesUndecidableTokensToTheParser() {
+        // Looks like JSON objects ("{}") but the claims are for the parser to judge
+        assertEquals(TokenPrecheck.Result.OK, check("e30.e30.sig"));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.day2jwt.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionedPbkdf2PasswordEncoderTest {
+
+    @Test
+    void raisedIterationCountKeepsOldHashesAndFlagsThemForUpgrade() {
+        String oldHash = new VersionedPbkdf2PasswordEncoder(1_000, 1_000).encode("secret");
+        VersionedPbkdf2PasswordEncoder raised = new VersionedPbkdf2PasswordEncoder(2_000, 1_000);
+
+        assertTrue(oldHash.startsWith("1000$"));
+        assertTrue(raised.matches("secret", oldHash));
+        assertFalse(raised.matches("wrong", oldHash));
+        assertTrue(raised.upgradeEncoding(oldHash));
+        assertFalse(raised.upgradeEncoding(raised.encode("secret")));
+    }
+
+    @Test
+    void legacyHashesUseTheConfiguredCount() {
+        String legacy = new Pbkdf2PasswordEncoder("", 16, 1_000,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256).encode("secret");
+        VersionedPbkdf2PasswordEncoder encoder = new VersionedPbkdf2PasswordEncoder(2_000, 1_000);
+
+        assertTrue(encoder.matches("secret", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+        assertFalse(encoder.matches("secret", "999999999999$" + legacy));
+    }
+}